@@ -0,0 +1,76 @@
+package com.susannelson.data;
+
+import com.susannelson.BenchmarkInputs;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dictionary lookups and loading, for each storage, with and without a WordFilter (false positive rate 0).
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DictionaryBenchmark {
+
+    final static String FILE_PATH = "/com/susannelson/data/wordsEn.txt";
+
+    @Param({"HASH", "PACKED", "MAPPED"})
+    Dictionary.Storage storage;
+
+    @Param({"CORRECT", "CASE_ERROR", "MISSPELLED", "GARBAGE"})
+    BenchmarkInputs inputs;
+
+    @Param({"0", "0.01"})
+    double filterFalsePositiveRate;
+
+    Dictionary dict;
+    Path mappedFile;
+    int next;
+
+    @Setup
+    public void setup() throws IOException {
+
+        mappedFile = Files.createTempDirectory("spelling").resolve("wordsEn.dict");
+        dict = load();
+    }
+
+    private Dictionary load() {
+
+        if (storage == Dictionary.Storage.MAPPED) {
+
+            return DictionarySnapshot.map(FILE_PATH, mappedFile).get().toDictionary(storage)
+                    .withFilter(filterFalsePositiveRate);
+        }
+
+        return new Dictionary.DictionaryBuilder().storage(storage).filter(filterFalsePositiveRate).build(FILE_PATH);
+    }
+
+    @Benchmark
+    public boolean contains() {
+
+        return dict.contains(inputs.get(next++));
+    }
+
+    @Benchmark
+    public Object get() {
+
+        return dict.get(inputs.get(next++));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public Dictionary build() {
+
+        return load();
+    }
+}
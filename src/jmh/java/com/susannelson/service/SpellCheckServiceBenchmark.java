@@ -0,0 +1,80 @@
+package com.susannelson.service;
+
+import com.susannelson.BenchmarkInputs;
+import com.susannelson.config.SpellingProperties;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The steps of a spelling check, with the suggestion cache turned off so every call does the work, and every
+ * suggestion strategy in use.
+ * getSpellingSuggestions is measured with the cache on, as it runs in production.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SpellCheckServiceBenchmark {
+
+    @Param({"CORRECT", "CASE_ERROR", "MISSPELLED", "GARBAGE"})
+    BenchmarkInputs inputs;
+
+    SpellCheckServiceImpl service;
+    SpellCheckServiceImpl cachedService;
+    int next;
+
+    @Setup
+    public void setup() {
+
+        SpellingProperties properties = new SpellingProperties();
+        properties.getCache().setMaximumSize(0);
+        properties.getSuggestions().getStrategies().add(SpellingProperties.Suggestions.Strategy.EDIT_DISTANCE);
+        service = new SpellCheckServiceImpl(properties);
+        cachedService = new SpellCheckServiceImpl();
+    }
+
+    @Benchmark
+    public Object getWordInLowercase() {
+
+        return service.getWordInLowercase(inputs.get(next++));
+    }
+
+    @Benchmark
+    public boolean isCaseCorrect() {
+
+        return service.isCaseCorrect(inputs.get(next++));
+    }
+
+    @Benchmark
+    public Object fuzzyMatch() {
+
+        return service.fuzzyMatch(inputs.get(next++));
+    }
+
+    @Benchmark
+    public Object charAppended() {
+
+        return service.charAppended(inputs.get(next++));
+    }
+
+    @Benchmark
+    public Object editDistance() {
+
+        return service.editDistance(inputs.get(next++));
+    }
+
+    @Benchmark
+    public Object makeSuggestions() {
+
+        return service.makeSuggestions(inputs.get(next++));
+    }
+
+    @Benchmark
+    public Object getSpellingSuggestions() {
+
+        return cachedService.getSpellingSuggestions(inputs.get(next++));
+    }
+}
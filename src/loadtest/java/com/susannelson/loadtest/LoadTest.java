@@ -0,0 +1,506 @@
+package com.susannelson.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.susannelson.Application;
+import com.susannelson.BenchmarkInputs;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.embedded.EmbeddedWebApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Boots the application on a random local port and replays a mix of words against /spelling/{word} at each of a
+ * series of fixed concurrency levels, recording the throughput and latency percentiles of each to a JSON report.
+ * Each level is warmed up first, with the same mix, and the warmup is not recorded.
+ * Misspelled words are made afresh for each request by a random typo in a random dictionary word, so most of them miss
+ * the suggestion cache, as a stream of real typos would, rather than measuring ten cached answers.
+ * Only responses with a 2xx status are timed; failed requests and other statuses, such as 503 when the service turns
+ * requests away, or 404 for garbage with no suggestions, are counted as rates instead, so fast refusals cannot make
+ * the latency look better.
+ * Given the report of an earlier build as a baseline, exits with status 1 if any level has regressed beyond the
+ * tolerance, in throughput, p99 latency, failure rate or non-2xx rate.
+ *
+ * Settings, as system properties:
+ *  loadtest.concurrency - comma separated numbers of concurrent clients, default 1,8,32.
+ *  loadtest.warmup-seconds - default 5.
+ *  loadtest.seconds - time each level is measured for, default 20.
+ *  loadtest.report - where the report is written, default target/loadtest-result.json.
+ *  loadtest.baseline - report to compare with, none by default.
+ *  loadtest.tolerance - fraction by which a level may be worse than the baseline, default 0.2.
+ * Arguments are passed to the application, so settings can be overridden: --spelling.async.enabled=false
+ */
+public final class LoadTest {
+
+    /**
+     * Share of the requests of each kind, in percent: mostly correctly spelled words, as a client sends them.
+     */
+    private static final Map<BenchmarkInputs, Integer> MIX = new EnumMap<>(BenchmarkInputs.class);
+
+    static {
+        MIX.put(BenchmarkInputs.CORRECT, 70);
+        MIX.put(BenchmarkInputs.CASE_ERROR, 10);
+        MIX.put(BenchmarkInputs.MISSPELLED, 15);
+        MIX.put(BenchmarkInputs.GARBAGE, 5);
+    }
+
+    private static final String WORDS_PATH = "/com/susannelson/data/wordsEn.txt";
+    private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        int[] concurrencyLevels = Arrays.stream(System.getProperty("loadtest.concurrency", "1,8,32").split(","))
+                .mapToInt(level -> Integer.parseInt(level.trim())).toArray();
+        long warmupMillis = TimeUnit.SECONDS.toMillis(Long.getLong("loadtest.warmup-seconds", 5));
+        long measureMillis = TimeUnit.SECONDS.toMillis(Long.getLong("loadtest.seconds", 20));
+        File reportFile = new File(System.getProperty("loadtest.report", "target/loadtest-result.json"));
+        String baseline = System.getProperty("loadtest.baseline");
+        double tolerance = Double.parseDouble(System.getProperty("loadtest.tolerance", "0.2"));
+
+        List<String> appArgs = new ArrayList<>(Arrays.asList(args));
+        appArgs.add("--server.port=0");
+        Report report = new Report();
+        Set<String> words = words();
+        String[] wordArray = words.toArray(new String[words.size()]);
+
+        try (ConfigurableApplicationContext ctx = SpringApplication.run(Application.class,
+                appArgs.toArray(new String[appArgs.size()]))) {
+
+            int port = ((EmbeddedWebApplicationContext) ctx).getEmbeddedServletContainer().getPort();
+            String base = "http://localhost:" + port + "/spelling/";
+
+            for (int concurrency : concurrencyLevels) {
+
+                run(base, words, wordArray, concurrency, warmupMillis);
+                Level level = run(base, words, wordArray, concurrency, measureMillis);
+                report.levels.add(level);
+
+                System.out.printf("concurrency %d: %.0f requests/s, p50 %.2f ms, p99 %.2f ms, p999 %.2f ms, "
+                                + "%d errors, %d non-2xx%n", concurrency, level.throughput, level.p50Millis,
+                        level.p99Millis, level.p999Millis, level.errors, level.non2xx);
+            }
+        }
+
+        reportFile.getAbsoluteFile().getParentFile().mkdirs();
+        JSON.writeValue(reportFile, report);
+        System.out.println("Report written to " + reportFile);
+
+        if (baseline != null) {
+
+            List<String> regressions = compare(JSON.readValue(new File(baseline), Report.class), report, tolerance);
+
+            for (String regression : regressions) {
+                System.out.println("REGRESSION " + regression);
+            }
+
+            if (!regressions.isEmpty()) {
+
+                System.exit(1);
+            }
+
+            System.out.println("No regressions against " + baseline);
+        }
+    }
+
+    /**
+     * Sends requests from concurrency clients, each waiting for its response before sending the next, for the time.
+     */
+    private static Level run(final String base, final Set<String> words, final String[] wordArray,
+                             final int concurrency, final long millis) throws Exception {
+
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        List<Future<Client>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(millis);
+
+        try {
+            for (int i = 0; i < concurrency; i++) {
+
+                Client client = new Client(base, words, wordArray, new Random(i));
+                futures.add(clients.submit(() -> client.run(deadline)));
+            }
+
+            List<Client> finished = new ArrayList<>();
+
+            for (Future<Client> future : futures) {
+                finished.add(future.get());
+            }
+
+            return new Level(concurrency, System.nanoTime() - start, finished);
+
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    /**
+     * @return a description of each level that is worse than the same level of the baseline beyond the tolerance.
+     */
+    static List<String> compare(final Report baseline, final Report report, final double tolerance) {
+
+        List<String> toReturn = new ArrayList<>();
+
+        for (Level level : report.levels) {
+
+            for (Level before : baseline.levels) {
+
+                if (before.concurrency != level.concurrency) {
+
+                    continue;
+                }
+
+                if (level.throughput < before.throughput * (1 - tolerance)) {
+
+                    toReturn.add(String.format("concurrency %d: throughput %.0f requests/s, was %.0f",
+                            level.concurrency, level.throughput, before.throughput));
+                }
+
+                if (level.p99Millis > before.p99Millis * (1 + tolerance)) {
+
+                    toReturn.add(String.format("concurrency %d: p99 %.2f ms, was %.2f ms",
+                            level.concurrency, level.p99Millis, before.p99Millis));
+                }
+
+                // a baseline without failures allows none
+                if (level.errorRate > before.errorRate * (1 + tolerance)) {
+
+                    toReturn.add(String.format("concurrency %d: %.3f%% of requests failed, was %.3f%%",
+                            level.concurrency, 100 * level.errorRate, 100 * before.errorRate));
+                }
+
+                if (level.non2xxRate > before.non2xxRate * (1 + tolerance)) {
+
+                    toReturn.add(String.format("concurrency %d: %.3f%% of responses were not 2xx, was %.3f%%",
+                            level.concurrency, 100 * level.non2xxRate, 100 * before.non2xxRate));
+                }
+            }
+        }
+
+        return toReturn;
+    }
+
+    /**
+     * @return the words of the bundled word list, to misspell.
+     */
+    private static Set<String> words() throws IOException {
+
+        Set<String> toReturn = new HashSet<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                LoadTest.class.getResourceAsStream(WORDS_PATH), StandardCharsets.UTF_8))) {
+
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+
+                if (!line.trim().isEmpty()) {
+                    toReturn.add(line.trim().toLowerCase());
+                }
+            }
+        }
+
+        return toReturn;
+    }
+
+    /**
+     * One client, sending words from the mix over a kept-alive connection and recording the latency of each 2xx
+     * response by kind.
+     */
+    private static final class Client {
+
+        private static final String VOWELS = "aeiou";
+
+        private final String base;
+        private final Set<String> words;
+        private final String[] wordArray;
+        private final Random random;
+        private final Map<BenchmarkInputs, long[]> latencies = new EnumMap<>(BenchmarkInputs.class);
+        private final Map<BenchmarkInputs, Integer> counts = new EnumMap<>(BenchmarkInputs.class);
+        private final Map<Integer, Integer> statuses = new TreeMap<>();
+        private final byte[] buffer = new byte[8192];
+        private int errors;
+        private int non2xx;
+
+        Client(final String base, final Set<String> words, final String[] wordArray, final Random random) {
+            this.base = base;
+            this.words = words;
+            this.wordArray = wordArray;
+            this.random = random;
+        }
+
+        Client run(final long deadline) {
+
+            while (System.nanoTime() - deadline < 0) {
+
+                BenchmarkInputs kind = pick(random.nextInt(100));
+                String word = (kind == BenchmarkInputs.MISSPELLED) ? misspelled() : kind.get(random.nextInt());
+                long start = System.nanoTime();
+                int status = get(word);
+                long elapsed = System.nanoTime() - start;
+
+                if (status < 0) {
+
+                    errors++;
+                    continue;
+                }
+
+                statuses.merge(status, 1, Integer::sum);
+
+                if (status < 200 || status >= 300) {
+
+                    non2xx++;
+                    continue;
+                }
+
+                record(kind, elapsed);
+            }
+
+            return this;
+        }
+
+        /**
+         * @return a random dictionary word with a typo of a kind the default strategies correct, so it is answered
+         * with suggestions: a vowel left out, a letter doubled, or the first or last letter left out. Typos that are
+         * themselves dictionary words are skipped.
+         */
+        private String misspelled() {
+
+            while (true) {
+
+                StringBuilder word = new StringBuilder(wordArray[random.nextInt(wordArray.length)]);
+                int at = random.nextInt(word.length());
+
+                switch (random.nextInt(4)) {
+                    case 0:
+                        int vowel = firstVowel(word, at);
+
+                        if (vowel >= 0) {
+                            word.deleteCharAt(vowel);
+                        }
+                        break;
+                    case 1:
+                        word.insert(at, word.charAt(at));
+                        break;
+                    case 2:
+                        word.deleteCharAt(0);
+                        break;
+                    default:
+                        word.deleteCharAt(word.length() - 1);
+                }
+
+                String toReturn = word.toString();
+
+                if (!toReturn.isEmpty() && !words.contains(toReturn)) {
+
+                    return toReturn;
+                }
+            }
+        }
+
+        /**
+         * @return the index of the first vowel at or after the index, wrapping around, or -1 if the word has none.
+         */
+        private static int firstVowel(final CharSequence word, final int from) {
+
+            for (int i = 0; i < word.length(); i++) {
+
+                int at = (from + i) % word.length();
+
+                if (VOWELS.indexOf(word.charAt(at)) >= 0) {
+
+                    return at;
+                }
+            }
+
+            return -1;
+        }
+
+        private static BenchmarkInputs pick(final int percent) {
+
+            int total = 0;
+
+            for (Map.Entry<BenchmarkInputs, Integer> share : MIX.entrySet()) {
+
+                total += share.getValue();
+
+                if (percent < total) {
+
+                    return share.getKey();
+                }
+            }
+
+            return BenchmarkInputs.CORRECT;
+        }
+
+        /**
+         * @return the status of the response, read to the end so the connection is reused, or -1 if it failed.
+         */
+        private int get(final String word) {
+
+            try {
+                HttpURLConnection connection = (HttpURLConnection) new URL(base + word).openConnection();
+                int status = connection.getResponseCode();
+                InputStream body = (status < 400) ? connection.getInputStream() : connection.getErrorStream();
+
+                if (body != null) {
+
+                    try (InputStream in = body) {
+                        while (in.read(buffer) >= 0) {
+                            // drained
+                        }
+                    }
+                }
+
+                return status;
+
+            } catch (IOException e) {
+
+                return -1;
+            }
+        }
+
+        private void record(final BenchmarkInputs kind, final long nanos) {
+
+            int count = counts.getOrDefault(kind, 0);
+            long[] kindLatencies = latencies.getOrDefault(kind, new long[1024]);
+
+            if (count == kindLatencies.length) {
+
+                kindLatencies = Arrays.copyOf(kindLatencies, count * 2);
+            }
+
+            kindLatencies[count] = nanos;
+            latencies.put(kind, kindLatencies);
+            counts.put(kind, count + 1);
+        }
+    }
+
+    /**
+     * The results of every level, as written to the report.
+     */
+    public static final class Report {
+
+        public List<Level> levels = new ArrayList<>();
+    }
+
+    /**
+     * Throughput and latency at one concurrency level, overall and by the kind of word. Times are in milliseconds.
+     */
+    public static final class Level {
+
+        public int concurrency;
+        // 2xx responses, which are timed
+        public long requests;
+        // requests that failed without a response
+        public long errors;
+        // responses with a status other than 2xx, which are not timed
+        public long non2xx;
+        // of all the requests sent
+        public double errorRate;
+        public double non2xxRate;
+        // of 2xx responses
+        public double throughput;
+        public double p50Millis;
+        public double p99Millis;
+        public double p999Millis;
+        public double maxMillis;
+        public Map<Integer, Integer> statuses = new TreeMap<>();
+        public Map<String, Map<String, Number>> byKind = new LinkedHashMap<>();
+
+        public Level() {
+        }
+
+        Level(final int concurrency, final long elapsedNanos, final List<Client> clients) {
+
+            this.concurrency = concurrency;
+            List<long[]> all = new ArrayList<>();
+
+            for (BenchmarkInputs kind : MIX.keySet()) {
+
+                List<long[]> ofKind = new ArrayList<>();
+
+                for (Client client : clients) {
+
+                    int count = client.counts.getOrDefault(kind, 0);
+
+                    if (count > 0) {
+
+                        ofKind.add(Arrays.copyOf(client.latencies.get(kind), count));
+                    }
+                }
+
+                long[] sorted = sorted(ofKind);
+                all.add(sorted);
+
+                Map<String, Number> percentiles = new LinkedHashMap<>();
+                percentiles.put("requests", sorted.length);
+                percentiles.put("p50Millis", percentileMillis(sorted, 0.5));
+                percentiles.put("p99Millis", percentileMillis(sorted, 0.99));
+                percentiles.put("p999Millis", percentileMillis(sorted, 0.999));
+                byKind.put(kind.name(), percentiles);
+            }
+
+            for (Client client : clients) {
+
+                errors += client.errors;
+                non2xx += client.non2xx;
+                client.statuses.forEach((status, count) -> statuses.merge(status, count, Integer::sum));
+            }
+
+            long[] sorted = sorted(all);
+            requests = sorted.length;
+            long sent = Math.max(1, requests + errors + non2xx);
+            errorRate = (double) errors / sent;
+            non2xxRate = (double) non2xx / sent;
+            throughput = requests / (elapsedNanos / 1e9);
+            p50Millis = percentileMillis(sorted, 0.5);
+            p99Millis = percentileMillis(sorted, 0.99);
+            p999Millis = percentileMillis(sorted, 0.999);
+            maxMillis = percentileMillis(sorted, 1);
+        }
+
+        private static long[] sorted(final List<long[]> parts) {
+
+            long[] toReturn = new long[parts.stream().mapToInt(part -> part.length).sum()];
+            int offset = 0;
+
+            for (long[] part : parts) {
+
+                System.arraycopy(part, 0, toReturn, offset, part.length);
+                offset += part.length;
+            }
+
+            Arrays.sort(toReturn);
+
+            return toReturn;
+        }
+
+        /**
+         * @return the latency below which the fraction of the sorted latencies fall, by the nearest rank.
+         */
+        private static double percentileMillis(final long[] sorted, final double fraction) {
+
+            if (sorted.length == 0) {
+
+                return 0;
+            }
+
+            int rank = (int) Math.ceil(fraction * sorted.length);
+
+            return sorted[Math.max(0, rank - 1)] / 1e6;
+        }
+    }
+}
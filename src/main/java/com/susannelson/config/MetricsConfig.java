@@ -0,0 +1,36 @@
+package com.susannelson.config;
+
+import com.codahale.metrics.JmxReporter;
+import com.codahale.metrics.MetricRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The registry the service and resources record their metrics in, published over JMX unless spelling.metrics.jmx is
+ * false.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MetricRegistry metricRegistry() {
+
+        return new MetricRegistry();
+    }
+
+    @Bean(destroyMethod = "stop")
+    @ConditionalOnProperty(prefix = "spelling.metrics", name = "jmx", matchIfMissing = true)
+    public JmxReporter jmxReporter(final MetricRegistry metricRegistry) {
+
+        JmxReporter reporter = JmxReporter.forRegistry(metricRegistry)
+                .inDomain("spelling")
+                .convertDurationsTo(TimeUnit.MILLISECONDS)
+                .build();
+        reporter.start();
+
+        return reporter;
+    }
+}
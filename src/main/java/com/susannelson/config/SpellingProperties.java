@@ -0,0 +1,378 @@
+package com.susannelson.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Tunable settings for the spelling service, bound from the spelling.* application properties.
+ * The defaults are used when the service is created outside of Spring.
+ */
+@Component
+@ConfigurationProperties(prefix = "spelling")
+public class SpellingProperties {
+
+    private final Dictionary dictionary = new Dictionary();
+    private final Cache cache = new Cache();
+    private final Fuzzy fuzzy = new Fuzzy();
+    private final Suggestions suggestions = new Suggestions();
+    private final Metrics metrics = new Metrics();
+    private final Async async = new Async();
+
+    public Dictionary getDictionary() {
+        return dictionary;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Fuzzy getFuzzy() {
+        return fuzzy;
+    }
+
+    public Suggestions getSuggestions() {
+        return suggestions;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public Async getAsync() {
+        return async;
+    }
+
+    /**
+     * How the dictionary words are held.
+     */
+    public static class Dictionary {
+
+        // word list file, one word per line, used instead of the bundled word list when set
+        private String file;
+        // reload the dictionary when the file changes
+        private boolean watch = true;
+        private com.susannelson.data.Dictionary.Storage storage = com.susannelson.data.Dictionary.Storage.HASH;
+        // snapshot file mapped by MAPPED storage, shared by the processes on the host using the same path
+        private String mappedFile = Paths.get(System.getProperty("java.io.tmpdir"), "spelling", "wordsEn.dict")
+                .toString();
+        // read the bundled word list at startup to compare its checksum with the snapshot's, as well as its length
+        private boolean verifySnapshotChecksum = false;
+        // name of the language the dictionary above is for, and which requests without a language are checked in
+        private String language = "en";
+        // word list of each further language, by name: a file, or a bundled resource as classpath:/path/words.txt
+        private Map<String, String> languages = new HashMap<>();
+        // heap the further languages may use, the least recently used are unloaded beyond it and loaded again on use
+        private long languagesMemoryMb = 256;
+        // false positive rate of the Bloom filter that answers lookups of missing words before the words are touched,
+        // 0 for no filter
+        private double filterFalsePositiveRate = 0;
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public boolean isWatch() {
+            return watch;
+        }
+
+        public void setWatch(boolean watch) {
+            this.watch = watch;
+        }
+
+        public com.susannelson.data.Dictionary.Storage getStorage() {
+            return storage;
+        }
+
+        public void setStorage(com.susannelson.data.Dictionary.Storage storage) {
+            this.storage = storage;
+        }
+
+        public String getMappedFile() {
+            return mappedFile;
+        }
+
+        public void setMappedFile(String mappedFile) {
+            this.mappedFile = mappedFile;
+        }
+
+        public boolean isVerifySnapshotChecksum() {
+            return verifySnapshotChecksum;
+        }
+
+        public void setVerifySnapshotChecksum(boolean verifySnapshotChecksum) {
+            this.verifySnapshotChecksum = verifySnapshotChecksum;
+        }
+
+        public String getLanguage() {
+            return language;
+        }
+
+        public void setLanguage(String language) {
+            this.language = language;
+        }
+
+        public Map<String, String> getLanguages() {
+            return languages;
+        }
+
+        public void setLanguages(Map<String, String> languages) {
+            this.languages = languages;
+        }
+
+        public long getLanguagesMemoryMb() {
+            return languagesMemoryMb;
+        }
+
+        public void setLanguagesMemoryMb(long languagesMemoryMb) {
+            this.languagesMemoryMb = languagesMemoryMb;
+        }
+
+        public double getFilterFalsePositiveRate() {
+            return filterFalsePositiveRate;
+        }
+
+        public void setFilterFalsePositiveRate(double filterFalsePositiveRate) {
+            this.filterFalsePositiveRate = filterFalsePositiveRate;
+        }
+    }
+
+    /**
+     * Suggestion result cache, keyed on the lowercase input.
+     */
+    public static class Cache {
+
+        // 0 disables the cache
+        private long maximumSize = 10000;
+        private long expireAfterWriteSeconds = 3600;
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public long getExpireAfterWriteSeconds() {
+            return expireAfterWriteSeconds;
+        }
+
+        public void setExpireAfterWriteSeconds(long expireAfterWriteSeconds) {
+            this.expireAfterWriteSeconds = expireAfterWriteSeconds;
+        }
+    }
+
+    /**
+     * Fuzzy (missing vowel) matching.
+     */
+    public static class Fuzzy {
+
+        /**
+         * Which words are handed to the fuzzy matcher.
+         *  SKELETON - only words sharing a consonant skeleton with the input.
+         *  FULL_SCAN - every word in the dictionary.
+         */
+        public enum Index {
+            SKELETON,
+            FULL_SCAN
+        }
+
+        private Index index = Index.SKELETON;
+        // candidate lists at least this long are matched in parallel on the common ForkJoinPool, 0 disables
+        private int parallelThreshold = 20000;
+
+        public Index getIndex() {
+            return index;
+        }
+
+        public void setIndex(Index index) {
+            this.index = index;
+        }
+
+        public int getParallelThreshold() {
+            return parallelThreshold;
+        }
+
+        public void setParallelThreshold(int parallelThreshold) {
+            this.parallelThreshold = parallelThreshold;
+        }
+    }
+
+    /**
+     * How suggestions are made for a word that is not in the dictionary.
+     */
+    public static class Suggestions {
+
+        /**
+         * Ways of finding suggestions.
+         *  FUZZY - words matching the input with missing vowels put back.
+         *  CHAR_APPENDED - words made by adding a letter to the front and/or end of the input.
+         *  EDIT_DISTANCE - words within max-edit-distance insertions, deletions, substitutions or transpositions of
+         *                  the input. Builds a deletion index of the dictionary, tens of MB at distance 2.
+         */
+        public enum Strategy {
+            FUZZY,
+            CHAR_APPENDED,
+            EDIT_DISTANCE
+        }
+
+        private List<Strategy> strategies = new ArrayList<>(Arrays.asList(Strategy.FUZZY, Strategy.CHAR_APPENDED));
+        private int maxEditDistance = 2;
+        // leading characters of each word indexed for EDIT_DISTANCE, longer is faster but uses more memory
+        private int editPrefixLength = 7;
+        // time each strategy may take, by strategy name, before it stops with the suggestions found so far, none
+        // unless set, as a stage cut short may miss suggestions
+        private Map<String, Long> budgetMillis = new HashMap<>();
+        // no further strategies are run once this many suggestions have been found, 0 runs them all
+        private int earlyExitCount = 0;
+        // return only the best this many suggestions, best first, 0 returns them all in alphabetical order; the
+        // suggestions are all found and then ranked, so this limits the response, not the time taken
+        private int topK = 0;
+        // word frequency file for ranking, "word count" on each line, every word is equally frequent when not set
+        private String frequencyFile;
+
+        public List<Strategy> getStrategies() {
+            return strategies;
+        }
+
+        public void setStrategies(List<Strategy> strategies) {
+            this.strategies = strategies;
+        }
+
+        public int getMaxEditDistance() {
+            return maxEditDistance;
+        }
+
+        public void setMaxEditDistance(int maxEditDistance) {
+            this.maxEditDistance = maxEditDistance;
+        }
+
+        public int getEditPrefixLength() {
+            return editPrefixLength;
+        }
+
+        public void setEditPrefixLength(int editPrefixLength) {
+            this.editPrefixLength = editPrefixLength;
+        }
+
+        public Map<String, Long> getBudgetMillis() {
+            return budgetMillis;
+        }
+
+        public void setBudgetMillis(Map<String, Long> budgetMillis) {
+            this.budgetMillis = budgetMillis;
+        }
+
+        /**
+         * @return the time the strategy may take in milliseconds, 0 for no limit.
+         */
+        public long getBudgetMillis(Strategy strategy) {
+            Long millis = budgetMillis.get(strategy.name());
+            return (millis == null) ? 0 : millis;
+        }
+
+        public int getEarlyExitCount() {
+            return earlyExitCount;
+        }
+
+        public void setEarlyExitCount(int earlyExitCount) {
+            this.earlyExitCount = earlyExitCount;
+        }
+
+        public int getTopK() {
+            return topK;
+        }
+
+        public void setTopK(int topK) {
+            this.topK = topK;
+        }
+
+        public String getFrequencyFile() {
+            return frequencyFile;
+        }
+
+        public void setFrequencyFile(String frequencyFile) {
+            this.frequencyFile = frequencyFile;
+        }
+    }
+
+    /**
+     * How the service's metrics are published.
+     */
+    public static class Metrics {
+
+        // publish the metrics as JMX MBeans in the "spelling" domain
+        private boolean jmx = true;
+        // log the input of suggestion requests taking at least this long, with the time of each strategy, 0 logs none
+        private long slowSuggestionsMillis = 100;
+
+        public boolean isJmx() {
+            return jmx;
+        }
+
+        public void setJmx(boolean jmx) {
+            this.jmx = jmx;
+        }
+
+        public long getSlowSuggestionsMillis() {
+            return slowSuggestionsMillis;
+        }
+
+        public void setSlowSuggestionsMillis(long slowSuggestionsMillis) {
+            this.slowSuggestionsMillis = slowSuggestionsMillis;
+        }
+    }
+
+    /**
+     * How GET /spelling/{word} shares the container threads between dictionary hits and suggestion requests.
+     */
+    public static class Async {
+
+        // make suggestions on a bounded pool, answering dictionary hits on the container thread, false does both inline
+        private boolean enabled = true;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        // suggestion requests waiting for a thread, beyond which they are turned away with 503
+        private int queueCapacity = 100;
+        // suggestion requests not answered within this time get a 503, 0 for no limit
+        private long timeoutMillis = 5000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public void setTimeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+    }
+}
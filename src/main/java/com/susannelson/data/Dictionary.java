@@ -4,59 +4,129 @@ import com.google.common.base.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.HashSet;
-import java.util.Optional;
-import java.util.Set;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Immutable dictionary holding the approved word list.
+ * Optionally, a WordFilter in front of the words answers most lookups of words that are not in the list, such as
+ * misspellings and garbage, without touching the words themselves.
  * @see com.susannelson.data.Dictionary.DictionaryBuilder
  */
 public final class Dictionary {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Dictionary.class);
 
-    private final Set<String> words;
+    /**
+     * How the words are held in memory.
+     *  HASH - an open addressing hash table, fastest lookups.
+     *  PACKED - sorted UTF-8 bytes in a single array, a fraction of the memory of HASH with binary search lookups.
+     *  MAPPED - as PACKED, but in a memory mapped snapshot file rather than on the heap, so processes on the same host
+     *           share one copy through the page cache. Only available from a snapshot, see DictionarySnapshot.map().
+     * Indexes read from the same snapshot, such as the service's skeleton index and trie, refer to the words by id and
+     * stay in the mapped file as well; indexes built from the words themselves hold them as Strings on the heap.
+     */
+    public enum Storage {
+        HASH,
+        PACKED,
+        MAPPED
+    }
+
+    private final WordStore words;
+    private final Storage storage;
+    // null unless lookups are filtered
+    private final WordFilter filter;
+
+    Dictionary(final WordStore words, final Storage storage) {
+        this(words, storage, null);
+    }
 
-    private Dictionary(final Set<String> words) {
+    private Dictionary(final WordStore words, final Storage storage, final WordFilter filter) {
         this.words = words;
+        this.storage = storage;
+        this.filter = filter;
+    }
+
+    /**
+     * Returns a Dictionary of the same words, sharing them with this one, whose lookups are first tested against a
+     * WordFilter of the words sized for the false positive rate.
+     *  @param falsePositiveRate - fraction of the lookups of missing words that the filter lets through, or 0 for
+     *                             no filter
+     *  @return Dictionary - this dictionary when the rate is 0
+     *  @throws IllegalArgumentException if the rate is not 0 and not between 0 and 1.
+     */
+    public Dictionary withFilter(final double falsePositiveRate) {
+
+        if (falsePositiveRate == 0) {
+
+            return this;
+        }
+
+        return new Dictionary(words, storage, WordFilter.build(words, falsePositiveRate));
+    }
+
+    /**
+     * @return the filter in front of the lookups, with its counts, or empty if there is none.
+     */
+    public Optional<WordFilter> getFilter() {
+
+        return Optional.ofNullable(filter);
     }
 
     /**
      * Returns true if the input is found in the internal list of words.
-     *  Since the internal list of words is in lower case, sets the input to lowercase before searching for the word.
+     *  Since the internal list of words is in lower case, the case of the input is ignored. ASCII input is compared
+     *  without creating a lowercase copy, so probing with a reused StringBuilder allocates nothing.
      *  Returns false if the input is null or the input string is not found.
-     *  @param input - String that represents a word in the dictionary
+     *  @param input - CharSequence that represents a word in the dictionary
      *  @return boolean
      */
-    public boolean contains(final String input) {
+    public boolean contains(final CharSequence input) {
 
-       return (input != null) && words.contains(input.toLowerCase());
+       return (input != null) && (lookup(input) != null);
     }
 
     /**
-     * Returns Optional containing the input String in lowercase if the input is contained in the internal list of words.
-     *  Since the internal list of words is in lower case, sets the input to lowercase before searching for the word.
+     * Returns Optional containing the word in lowercase if the input is contained in the internal list of words.
+     *  Since the internal list of words is in lower case, the case of the input is ignored.
      *  Return is empty if word is not found or input is null.
-     *  @param input - String that represents a word in the dictionary
-     *  @return Optional<String> with input in lowercase
+     *  @param input - CharSequence that represents a word in the dictionary
+     *  @return Optional<String> with the word in lowercase
      */
-    public Optional<String> get(final String input) {
+    public Optional<String> get(final CharSequence input) {
 
-        Optional<String> word = Optional.empty();
+        return (input != null) ? Optional.ofNullable(lookup(input)) : Optional.empty();
+    }
 
-        if (input != null) {
+    private String lookup(final CharSequence input) {
 
-            String inputLowerCase = input.toLowerCase();
+        if (Folding.isAscii(input)) {
 
-            if (words.contains(inputLowerCase)) {
+            return lookup(input, true);
+        }
 
-                word = Optional.of(inputLowerCase);
-            }
+        return lookup(input.toString().toLowerCase(), false);
+    }
+
+    private String lookup(final CharSequence key, final boolean ignoreCase) {
+
+        if (filter != null && !filter.mightContain(key)) {
+
+            return null;
+        }
+
+        String word = words.get(key, ignoreCase);
+
+        if (word == null && filter != null) {
+            filter.falsePositive();
         }
 
         return word;
@@ -64,14 +134,51 @@ public final class Dictionary {
 
     /**
      * @return a copy of the internal Set of words.
+     * @see #getWordsView() to read the words without copying them.
      */
     public Set<String> getWords() {
 
-        return new HashSet<>(words);
+        return new HashSet<>(words.asSet());
+    }
+
+    /**
+     * Returns a read-only view of the internal Set of words, without copying it.
+     *  Attempts to modify the view throw UnsupportedOperationException.
+     *  @return Set<String> of lowercase words
+     */
+    public Set<String> getWordsView() {
+
+        return words.asSet();
+    }
+
+    /**
+     * Performs the action for each word in the dictionary, without copying the internal Set of words.
+     *  @param action - called once with each lowercase word
+     */
+    public void forEach(final Consumer<? super String> action) {
+
+        words.forEach(action);
+    }
+
+    public Storage getStorage() {
+
+        return storage;
+    }
+
+    /**
+     * @return estimated number of heap bytes used to hold the words and any filter, which does not include mapped
+     * words.
+     */
+    public long memoryBytes() {
+
+        return words.memoryBytes() + ((filter != null) ? filter.memoryBytes() : 0);
     }
 
-    // for testing
-    int size() {
+    /**
+     * @return the number of words.
+     */
+    public int size() {
+
         return words.size();
     }
 
@@ -84,57 +191,166 @@ public final class Dictionary {
      */
     boolean containsCaseSensitive(final String input) {
 
-        return (input != null) && words.contains(input);
+        return (input != null) && words.contains(input, false);
     }
 
     public static class DictionaryBuilder {
 
         final Set<String> words = new HashSet<>(100000);
+        private Storage storage = Storage.HASH;
+        private boolean snapshot = true;
+        private double filterFalsePositiveRate;
+        // null unless words are shared with another dictionary
+        private Dictionary sharedWith;
+
+        /**
+         * Selects how the built Dictionary holds its words. Defaults to HASH.
+         * @throws IllegalArgumentException for MAPPED, which is only available from a snapshot.
+         */
+        public DictionaryBuilder storage(final Storage storage) {
+
+            if (storage == Storage.MAPPED) {
+
+                throw new IllegalArgumentException("MAPPED storage is only available from DictionarySnapshot.map().");
+            }
+
+            this.storage = storage;
+            return this;
+        }
+
+        /**
+         * Selects whether build(filePath) loads the precompiled snapshot of the file when there is a current one.
+         * Defaults to true.
+         * @see DictionarySnapshot
+         */
+        public DictionaryBuilder snapshot(final boolean useSnapshot) {
+
+            this.snapshot = useSnapshot;
+            return this;
+        }
+
+        /**
+         * Selects the false positive rate of a WordFilter in front of the built Dictionary's lookups. Defaults to 0,
+         * no filter.
+         * @see Dictionary#withFilter(double)
+         */
+        public DictionaryBuilder filter(final double falsePositiveRate) {
+
+            this.filterFalsePositiveRate = falsePositiveRate;
+            return this;
+        }
+
+        /**
+         * Selects a dictionary whose String instances are reused for the words the two have in common, so a word list
+         * that overlaps another, such as a regional variant of a language, only adds the memory of its own words.
+         * Only HASH storage holds String instances; PACKED storage copies the words into its own bytes regardless.
+         */
+        public DictionaryBuilder shareWordsWith(final Dictionary dictionary) {
+
+            this.sharedWith = dictionary;
+            return this;
+        }
 
+        /**
+         * Builds a Dictionary from the word list file at the resource path, one word per line, together with any words
+         * already added. When nothing has been added, the file's snapshot is loaded instead if there is a current one,
+         * and the words are then not added to this builder.
+         */
         public Dictionary build(final String filePath) {
 
-            InputStream stream = null;
-            BufferedReader reader = null;
+            if (snapshot && words.isEmpty()) {
+
+                Optional<DictionarySnapshot> loaded = DictionarySnapshot.load(filePath);
+
+                if (loaded.isPresent()) {
+
+                    Dictionary dict = loaded.get().toDictionary(storage).withFilter(filterFalsePositiveRate);
+                    LOGGER.info("Dictionary loaded with " + dict.size() + " words from snapshot in " + storage
+                            + " storage using " + dict.memoryBytes() / 1024 + " KB.");
+                    return dict;
+                }
+            }
+
+            try (InputStream stream = getClass().getResourceAsStream(filePath)) {
 
-            try {
-                stream = getClass().getResourceAsStream(filePath);
-                reader = new BufferedReader(new InputStreamReader(stream));
-                String line;
+                if (stream == null) {
 
-                while ((line = reader.readLine()) != null) {
-                    add(line);
+                    throw new IOException("No such resource.");
                 }
 
-                LOGGER.info("Dictionary loaded with " + words.size() + " words.");
-                return new Dictionary(words);
+                return read(Channels.newChannel(stream));
 
             } catch (Exception e) {
 
                 LOGGER.error("Trouble loading Dictionary from file path: " + filePath, e);
                 throw new RuntimeException("Not able to populate Dictionary: " + e.getMessage());
-            } finally {
-
-                if (reader != null) {
-                    try {
-                        reader.close();
-                    } catch (IOException e) {
-                        LOGGER.warn("reader failed to close: " + e.getMessage());
-                    }
-                }
+            }
+        }
 
-                if (stream != null) {
-                    try {
-                        stream.close();
-                    } catch (IOException e) {
-                        LOGGER.warn("stream failed to close: " + e.getMessage());
-                    }
-                }
+        /**
+         * Builds a Dictionary from the UTF-8 word list file, one word per line, together with any words already
+         * added. Snapshots are only made of the bundled resources, so the text is always read.
+         */
+        public Dictionary build(final Path file) {
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+                return read(channel);
+
+            } catch (Exception e) {
+
+                LOGGER.error("Trouble loading Dictionary from file: " + file, e);
+                throw new RuntimeException("Not able to populate Dictionary: " + e.getMessage());
             }
         }
 
+        /**
+         * Reads the UTF-8 word list in chunks that are split into words in parallel, see WordListReader.
+         */
+        private Dictionary read(final ReadableByteChannel channel) throws IOException {
+
+            long start = System.nanoTime();
+            WordListReader reader = WordListReader.read(channel);
+            reader.addTo(words);
+            long elapsedNanos = Math.max(1, System.nanoTime() - start);
+
+            Dictionary dict = build();
+            LOGGER.info("Dictionary loaded with " + words.size() + " words in " + storage + " storage using "
+                    + dict.memoryBytes() / 1024 + " KB" + (storage == Storage.HASH ? "." :
+                    " (" + HashWordStore.estimateBytes(words) / 1024 + " KB in HASH storage)."));
+            LOGGER.info("Word list of " + reader.length() / 1024 + " KB read in " + reader.chunks() + " chunks in "
+                    + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + " ms, "
+                    + String.format("%.1f", reader.length() / 1048576.0 / (elapsedNanos / 1e9)) + " MB/s.");
+            return dict;
+        }
+
         public Dictionary build() {
 
-            return new Dictionary(words);
+            switch (storage) {
+                case PACKED:
+                    return new Dictionary(PackedWordStore.of(words), storage).withFilter(filterFalsePositiveRate);
+                default:
+                    return new Dictionary(new HashWordStore(sharedWords()), storage)
+                            .withFilter(filterFalsePositiveRate);
+            }
+        }
+
+        private Collection<String> sharedWords() {
+
+            if (sharedWith == null) {
+
+                return words;
+            }
+
+            List<String> toReturn = new ArrayList<>(words.size());
+
+            for (String word : words) {
+
+                String shared = sharedWith.words.get(word, false);
+                toReturn.add((shared != null) ? shared : word);
+            }
+
+            return toReturn;
         }
 
         public void add(final String key) {
@@ -0,0 +1,471 @@
+package com.susannelson.data;
+
+import com.google.common.io.ByteStreams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Precompiled binary form of a word list, written at build time next to the text file it was made from
+ * (wordsEn.txt becomes wordsEn.dict) and bulk loaded at startup instead of parsing the text.
+ *
+ * Layout, big endian:
+ *  int magic, int version, long length of the source text file, long CRC32 of the source text file,
+ *  int word count, int byte count, int[word count + 1] offsets, byte[byte count] sorted UTF-8 words (as PackedWordStore),
+ *  int section count, then for each section: short name length, UTF-8 name, int length, byte[length] content.
+ * Sections hold indexes derived from the words, written and read by their owners.
+ *
+ * A snapshot is ignored, and the text file used instead, if it is missing, unreadable, of another version, or was made
+ * from a source file of a different length. The build writes the snapshot from the same resource it bundles, so the
+ * length is all that is compared by default, without reading the text. The checksum is only compared when asked
+ * for, such as in development where the text may be edited without rebuilding the snapshot, which also catches edits
+ * that do not change the length, such as a corrected letter, at the cost of reading the whole text.
+ *
+ * A snapshot can also be memory mapped from a file, see map(), in which case the words and the sections stay in the
+ * mapped file and are shared through the page cache by every process mapping it.
+ */
+public final class DictionarySnapshot {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DictionarySnapshot.class);
+
+    static final int MAGIC = 0x53504c44;
+    static final int VERSION = 3;
+    static final String EXTENSION = ".dict";
+
+    private final long sourceLength;
+    private final long sourceChecksum;
+    private final PackedWordStore words;
+    private final Map<String, ByteBuffer> sections;
+    private String[] decodedWords;
+
+    private DictionarySnapshot(final long sourceLength, final long sourceChecksum, final PackedWordStore words,
+                               final Map<String, ByteBuffer> sections) {
+        this.sourceLength = sourceLength;
+        this.sourceChecksum = sourceChecksum;
+        this.words = words;
+        this.sections = sections;
+    }
+
+    /**
+     * Writes the words of the Dictionary and the sections as a snapshot.
+     *  @param sourceLength - length in bytes of the text file the Dictionary was built from
+     *  @param sourceChecksum - CRC32 of the text file the Dictionary was built from, see sourceChecksum()
+     *  @param sections - named content of derived indexes
+     */
+    public static void write(final OutputStream output, final Dictionary dict, final long sourceLength,
+                             final long sourceChecksum, final Map<String, byte[]> sections) throws IOException {
+
+        PackedWordStore packed = PackedWordStore.of(dict.getWordsView());
+        DataOutputStream out = new DataOutputStream(output);
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(sourceLength);
+        out.writeLong(sourceChecksum);
+        ByteBuffer bytes = packed.bytes();
+        IntBuffer offsets = packed.offsets();
+
+        out.writeInt(packed.size());
+        out.writeInt(bytes.remaining());
+
+        while (offsets.hasRemaining()) {
+            out.writeInt(offsets.get());
+        }
+
+        byte[] copy = new byte[bytes.remaining()];
+        bytes.get(copy);
+        out.write(copy);
+
+        out.writeInt(sections.size());
+
+        for (Map.Entry<String, byte[]> section : sections.entrySet()) {
+
+            byte[] name = section.getKey().getBytes(StandardCharsets.UTF_8);
+            out.writeShort(name.length);
+            out.write(name);
+            out.writeInt(section.getValue().length);
+            out.write(section.getValue());
+        }
+
+        out.flush();
+    }
+
+    /**
+     * @return the words of the Dictionary in the order a snapshot of it holds them, for section content to refer to
+     *  words by position.
+     */
+    public static List<String> order(final Dictionary dict) {
+
+        return new ArrayList<>(PackedWordStore.of(dict.getWordsView()).asSet());
+    }
+
+    /**
+     * Reads a snapshot.
+     * @throws IOException if the input is not a snapshot of this version.
+     */
+    public static DictionarySnapshot read(final InputStream input) throws IOException {
+
+        return parse(ByteBuffer.wrap(ByteStreams.toByteArray(input)));
+    }
+
+    /**
+     * Parses the snapshot in the buffer. The words of a direct (mapped) buffer are used where they are; the words of
+     * a heap buffer are copied, so the rest of the buffer can be collected once the sections have been read.
+     */
+    private static DictionarySnapshot parse(final ByteBuffer buffer) throws IOException {
+
+        try {
+            if (buffer.getInt() != MAGIC) {
+
+                throw new IOException("Not a dictionary snapshot.");
+            }
+
+            int version = buffer.getInt();
+
+            if (version != VERSION) {
+
+                throw new IOException("Unsupported dictionary snapshot version " + version + ".");
+            }
+
+            long sourceLength = buffer.getLong();
+            long sourceChecksum = buffer.getLong();
+            int wordCount = buffer.getInt();
+            int byteCount = buffer.getInt();
+            ByteBuffer offsets = slice(buffer, 4 * (wordCount + 1));
+            ByteBuffer bytes = slice(buffer, byteCount);
+            PackedWordStore words;
+
+            if (buffer.isDirect()) {
+
+                words = new PackedWordStore(bytes, offsets.asIntBuffer());
+            } else {
+
+                int[] offsetArray = new int[wordCount + 1];
+                byte[] byteArray = new byte[byteCount];
+                offsets.asIntBuffer().get(offsetArray);
+                bytes.get(byteArray);
+                words = new PackedWordStore(byteArray, offsetArray);
+            }
+
+            int sectionCount = buffer.getInt();
+            Map<String, ByteBuffer> sections = new HashMap<>();
+
+            for (int i = 0; i < sectionCount; i++) {
+
+                byte[] name = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(name);
+                int length = buffer.getInt();
+                sections.put(new String(name, StandardCharsets.UTF_8), slice(buffer, length));
+            }
+
+            return new DictionarySnapshot(sourceLength, sourceChecksum, words, sections);
+
+        } catch (RuntimeException e) {
+
+            throw new IOException("Corrupt dictionary snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return the next length bytes of the buffer, advancing the buffer past them.
+     */
+    private static ByteBuffer slice(final ByteBuffer buffer, final int length) {
+
+        if (length < 0 || length > buffer.remaining()) {
+
+            throw new IllegalArgumentException("length " + length + " past the end of the snapshot");
+        }
+
+        ByteBuffer toReturn = buffer.slice();
+        toReturn.limit(length);
+        buffer.position(buffer.position() + length);
+
+        return toReturn;
+    }
+
+    /**
+     * Loads the snapshot of the text file at the resource path, if there is one of the same length.
+     * @see #load(String, boolean)
+     */
+    public static Optional<DictionarySnapshot> load(final String filePath) {
+
+        return load(filePath, false);
+    }
+
+    /**
+     * Loads the snapshot of the text file at the resource path, if there is a current one.
+     *  @param filePath - resource path of the text file, such as /com/susannelson/data/wordsEn.txt
+     *  @param verifyChecksum - whether to read the text file to compare its checksum as well as its length
+     *  @return Optional<DictionarySnapshot>, empty if there is no usable snapshot.
+     */
+    public static Optional<DictionarySnapshot> load(final String filePath, final boolean verifyChecksum) {
+
+        String snapshotPath = snapshotPath(filePath);
+
+        try (InputStream stream = DictionarySnapshot.class.getResourceAsStream(snapshotPath)) {
+
+            if (stream == null) {
+
+                LOGGER.info("No dictionary snapshot at " + snapshotPath + ", loading the text file.");
+                return Optional.empty();
+            }
+
+            long start = System.nanoTime();
+            DictionarySnapshot snapshot = read(stream);
+
+            if (!snapshot.isFrom(filePath, verifyChecksum)) {
+
+                LOGGER.warn("Dictionary snapshot " + snapshotPath + " is stale, loading the text file.");
+                return Optional.empty();
+            }
+
+            LOGGER.info("Dictionary snapshot " + snapshotPath + " read in "
+                    + (System.nanoTime() - start) / 1000000 + " ms.");
+            return Optional.of(snapshot);
+
+        } catch (IOException e) {
+
+            LOGGER.warn("Not able to read dictionary snapshot " + snapshotPath + ", loading the text file: "
+                    + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Memory maps the snapshot file, comparing the lengths of the text files only.
+     * @see #map(String, Path, boolean)
+     */
+    public static Optional<DictionarySnapshot> map(final String filePath, final Path file) {
+
+        return map(filePath, file, false);
+    }
+
+    /**
+     * Memory maps the snapshot file, first copying the snapshot of the text file at the resource path to it if the
+     * file is missing or is not current. The copy is written to a temporary file and moved into place, so processes
+     * sharing the file never see it partly written, and processes that mapped an earlier copy keep reading it.
+     *  @param filePath - resource path of the text file, such as /com/susannelson/data/wordsEn.txt
+     *  @param file - the file to map, such as /tmp/spelling/wordsEn.dict
+     *  @param verifyChecksum - whether to read the text file to compare its checksum as well as its length
+     *  @return Optional<DictionarySnapshot>, empty if there is no usable snapshot.
+     */
+    public static Optional<DictionarySnapshot> map(final String filePath, final Path file,
+                                                   final boolean verifyChecksum) {
+
+        try {
+            Optional<DictionarySnapshot> mapped = mapFile(file);
+
+            if (mapped.isPresent() && mapped.get().isFrom(filePath, verifyChecksum)) {
+
+                LOGGER.info("Dictionary snapshot " + file + " mapped.");
+                return mapped;
+            }
+
+            String snapshotPath = snapshotPath(filePath);
+
+            try (InputStream stream = DictionarySnapshot.class.getResourceAsStream(snapshotPath)) {
+
+                if (stream == null) {
+
+                    LOGGER.info("No dictionary snapshot at " + snapshotPath + " to map.");
+                    return Optional.empty();
+                }
+
+                Path directory = file.toAbsolutePath().getParent();
+                Files.createDirectories(directory);
+                Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+
+                try {
+                    Files.copy(stream, temporary, StandardCopyOption.REPLACE_EXISTING);
+                    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(temporary);
+                }
+            }
+
+            mapped = mapFile(file);
+
+            if (mapped.isPresent() && mapped.get().isFrom(filePath, verifyChecksum)) {
+
+                LOGGER.info("Dictionary snapshot " + snapshotPath + " copied to " + file + " and mapped.");
+                return mapped;
+            }
+
+            LOGGER.warn("Dictionary snapshot " + snapshotPath + " is stale, not mapping it.");
+            return Optional.empty();
+
+        } catch (IOException e) {
+
+            LOGGER.warn("Not able to map dictionary snapshot " + file + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return the mapped snapshot, or empty if the file is missing or is not a snapshot of this version.
+     */
+    private static Optional<DictionarySnapshot> mapFile(final Path file) {
+
+        if (!Files.isRegularFile(file)) {
+
+            return Optional.empty();
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            // the mapping stays valid after the channel is closed
+            return Optional.of(parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+
+        } catch (IOException e) {
+
+            LOGGER.warn("Not able to map dictionary snapshot " + file + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return the length in bytes of the resource, or -1 if it cannot be found.
+     */
+    public static long sourceLength(final String filePath) throws IOException {
+
+        URL url = DictionarySnapshot.class.getResource(filePath);
+
+        return (url == null) ? -1 : url.openConnection().getContentLengthLong();
+    }
+
+    /**
+     * @return the CRC32 of the bytes of the resource, or -1 if it cannot be found.
+     */
+    public static long sourceChecksum(final String filePath) throws IOException {
+
+        try (InputStream stream = DictionarySnapshot.class.getResourceAsStream(filePath)) {
+
+            if (stream == null) {
+
+                return -1;
+            }
+
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[65536];
+            int read;
+
+            while ((read = stream.read(buffer)) > 0) {
+                crc.update(buffer, 0, read);
+            }
+
+            return crc.getValue();
+        }
+    }
+
+    /**
+     * Returns true if the snapshot was made from the text file at the resource path as it is now, or if the text file
+     * cannot be found to compare, in which case the snapshot is all there is.
+     * Only reads the text file for its checksum when asked to and the lengths match.
+     */
+    private boolean isFrom(final String filePath, final boolean verifyChecksum) throws IOException {
+
+        long length = sourceLength(filePath);
+
+        if (length < 0) {
+
+            return true;
+        }
+
+        if (length != sourceLength) {
+
+            return false;
+        }
+
+        return !verifyChecksum || isFrom(length, sourceChecksum(filePath));
+    }
+
+    /**
+     * @return true if the snapshot was made from a text file of the length and checksum.
+     */
+    boolean isFrom(final long length, final long checksum) {
+
+        return length == sourceLength && checksum == sourceChecksum;
+    }
+
+    static String snapshotPath(final String filePath) {
+
+        int dot = filePath.lastIndexOf('.');
+
+        return ((dot > filePath.lastIndexOf('/')) ? filePath.substring(0, dot) : filePath) + EXTENSION;
+    }
+
+    /**
+     * @return a Dictionary holding the words of the snapshot in the storage.
+     * @throws IllegalArgumentException if the storage is MAPPED and the snapshot was not mapped.
+     */
+    public Dictionary toDictionary(final Dictionary.Storage storage) {
+
+        switch (storage) {
+            case MAPPED:
+                if (!words.isDirect()) {
+
+                    throw new IllegalArgumentException("MAPPED storage needs a snapshot opened with map().");
+                }
+
+                return new Dictionary(words, storage);
+            case PACKED:
+                return new Dictionary(words.isDirect() ? PackedWordStore.of(Arrays.asList(getWords())) : words,
+                        storage);
+            default:
+                return new Dictionary(new HashWordStore(Arrays.asList(getWords())), storage);
+        }
+    }
+
+    /**
+     * Decodes the word with the id from the packed words, without keeping it, so indexes over a PACKED or MAPPED
+     * Dictionary made from this snapshot can refer to words by id rather than hold them.
+     *  @param id - the position of the word in snapshot order, as section content refers to it
+     */
+    public String getWord(final int id) {
+
+        return words.get(id);
+    }
+
+    /**
+     * @return the words in snapshot order, which is the order section content refers to them by.
+     *  The same String instances are used by a HASH Dictionary made from this snapshot.
+     */
+    public synchronized String[] getWords() {
+
+        if (decodedWords == null) {
+
+            decodedWords = new String[words.size()];
+
+            for (int i = 0; i < decodedWords.length; i++) {
+                decodedWords[i] = words.get(i);
+            }
+        }
+
+        return decodedWords;
+    }
+
+    /**
+     * @return read-only content of the named section, positioned at its start, or empty if there is no such section.
+     */
+    public Optional<ByteBuffer> getSection(final String name) {
+
+        ByteBuffer section = sections.get(name);
+
+        return (section == null) ? Optional.empty() : Optional.of(section.asReadOnlyBuffer());
+    }
+}
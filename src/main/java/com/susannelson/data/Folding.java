@@ -0,0 +1,53 @@
+package com.susannelson.data;
+
+/**
+ * Allocation free case folding of ASCII letters, used by the word stores to compare input against the lowercase
+ * stored words without creating a lowercase copy of the input.
+ * Input containing other characters is lowercased by the Dictionary before it reaches a store.
+ */
+final class Folding {
+
+    private Folding() {
+    }
+
+    static char fold(final char c, final boolean ignoreCase) {
+
+        return (ignoreCase && c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    static int fold(final int codePoint, final boolean ignoreCase) {
+
+        return (ignoreCase && codePoint >= 'A' && codePoint <= 'Z') ? codePoint + ('a' - 'A') : codePoint;
+    }
+
+    static boolean equals(final CharSequence input, final String word, final boolean ignoreCase) {
+
+        if (input.length() != word.length()) {
+
+            return false;
+        }
+
+        for (int i = 0; i < word.length(); i++) {
+
+            if (fold(input.charAt(i), ignoreCase) != word.charAt(i)) {
+
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    static boolean isAscii(final CharSequence input) {
+
+        for (int i = 0; i < input.length(); i++) {
+
+            if (input.charAt(i) >= 0x80) {
+
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
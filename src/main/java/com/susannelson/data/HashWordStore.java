@@ -0,0 +1,204 @@
+package com.susannelson.data;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Stores the words in an open addressing hash table with linear probing.
+ * The hash ignores the case of ASCII letters, so a lookup can fold the case of the input while it hashes and compares,
+ * without creating a lowercase copy of it.
+ * Fastest to query, but costs around 50 bytes of object overhead per word.
+ */
+final class HashWordStore implements WordStore {
+
+    // 64 bit JVM with compressed oops
+    private static final int OBJECT_REFERENCE_BYTES = 4;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int STRING_BYTES = 24;
+
+    private final String[] table;
+    private final int mask;
+    private final int size;
+    private final Set<String> wordsView = new View();
+
+    HashWordStore(final Collection<String> words) {
+
+        table = new String[tableSize(words.size())];
+        mask = table.length - 1;
+
+        int count = 0;
+
+        for (String word : words) {
+
+            int slot = hash(word, true) & mask;
+
+            while (table[slot] != null && !table[slot].equals(word)) {
+                slot = (slot + 1) & mask;
+            }
+
+            if (table[slot] == null) {
+                table[slot] = word;
+                count++;
+            }
+        }
+
+        size = count;
+    }
+
+    @Override
+    public boolean contains(final CharSequence word, final boolean ignoreCase) {
+
+        return get(word, ignoreCase) != null;
+    }
+
+    @Override
+    public String get(final CharSequence word, final boolean ignoreCase) {
+
+        int slot = hash(word, true) & mask;
+
+        while (table[slot] != null) {
+
+            if (Folding.equals(word, table[slot], ignoreCase)) {
+
+                return table[slot];
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return null;
+    }
+
+    @Override
+    public int size() {
+
+        return size;
+    }
+
+    @Override
+    public void forEach(final Consumer<? super String> action) {
+
+        for (String word : table) {
+
+            if (word != null) {
+                action.accept(word);
+            }
+        }
+    }
+
+    @Override
+    public Set<String> asSet() {
+
+        return wordsView;
+    }
+
+    @Override
+    public long memoryBytes() {
+
+        return estimateBytes(wordsView);
+    }
+
+    /**
+     * Estimates the heap used by a HashWordStore holding the words.
+     */
+    static long estimateBytes(final Collection<String> words) {
+
+        long bytes = align(ARRAY_HEADER_BYTES + (long) OBJECT_REFERENCE_BYTES * tableSize(words.size()));
+
+        for (String word : words) {
+
+            bytes += wordBytes(word);
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Estimates the heap used by the String instance of a word.
+     */
+    static long wordBytes(final String word) {
+
+        return STRING_BYTES + align(ARRAY_HEADER_BYTES + 2L * word.length());
+    }
+
+    static long align(final long bytes) {
+
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * @return a power of two at least twice the number of words, keeping probe sequences short.
+     */
+    private static int tableSize(final int words) {
+
+        int size = 16;
+
+        while (size < 2 * words) {
+            size <<= 1;
+        }
+
+        return size;
+    }
+
+    private static int hash(final CharSequence word, final boolean ignoreCase) {
+
+        int h = 0;
+
+        for (int i = 0; i < word.length(); i++) {
+            h = 31 * h + Folding.fold(word.charAt(i), ignoreCase);
+        }
+
+        // spread the high bits into the masked low bits
+        return h ^ (h >>> 16);
+    }
+
+    private final class View extends AbstractSet<String> {
+
+        @Override
+        public boolean contains(final Object o) {
+
+            return (o instanceof CharSequence) && HashWordStore.this.contains((CharSequence) o, false);
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+
+            return new Iterator<String>() {
+
+                private int slot = advance(0);
+
+                private int advance(int from) {
+
+                    while (from < table.length && table[from] == null) {
+                        from++;
+                    }
+
+                    return from;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return slot < table.length;
+                }
+
+                @Override
+                public String next() {
+
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+
+                    String word = table[slot];
+                    slot = advance(slot + 1);
+                    return word;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+
+            return size;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.susannelson.data;
+
+import com.google.common.base.Strings;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A shared, immutable Dictionary with a small set of extra words layered over it, such as a tenant's product names.
+ * The layers are never merged: lookups try the base and then the overlay, so any number of overlays cost only their own
+ * words, and words added to or removed from the overlay are seen by the next lookup.
+ * The overlay words are held in a concurrent set that may outlive the overlay, so a new base, after a reload, can be
+ * layered under the same words.
+ */
+public final class OverlayDictionary {
+
+    private final Dictionary base;
+    private final Set<String> words;
+
+    /**
+     * @param base - the shared dictionary.
+     * @param words - lowercase overlay words, from newWordSet(), or any read-only set.
+     */
+    public OverlayDictionary(final Dictionary base, final Set<String> words) {
+        this.base = base;
+        this.words = words;
+    }
+
+    /**
+     * @return an empty concurrent set for the overlay words, which can be changed while it is being read.
+     */
+    public static Set<String> newWordSet() {
+
+        return ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Adds the word to the overlay words in lowercase, as the DictionaryBuilder adds words.
+     * @return true if the word was not already in the set.
+     */
+    public static boolean add(final Set<String> words, final String word) {
+
+        return !Strings.isNullOrEmpty(word) && words.add(word.toLowerCase());
+    }
+
+    /**
+     * Returns true if the input is found in the base or the overlay, ignoring case.
+     * Returns false if the input is null.
+     */
+    public boolean contains(final CharSequence input) {
+
+        return get(input).isPresent();
+    }
+
+    /**
+     * Returns Optional containing the word in lowercase if the input is found in the base or the overlay.
+     * The base is looked up first, without allocating for ASCII input; the overlay only when the base has no such word.
+     */
+    public Optional<String> get(final CharSequence input) {
+
+        Optional<String> fromBase = base.get(input);
+
+        if (fromBase.isPresent() || input == null || words.isEmpty()) {
+
+            return fromBase;
+        }
+
+        String lowercase = input.toString().toLowerCase();
+
+        return words.contains(lowercase) ? Optional.of(lowercase) : Optional.empty();
+    }
+
+    public Dictionary getBase() {
+
+        return base;
+    }
+
+    /**
+     * @return a read-only view of the overlay words, which reflects later changes.
+     */
+    public Set<String> getOverlayWords() {
+
+        return Collections.unmodifiableSet(words);
+    }
+}
@@ -0,0 +1,253 @@
+package com.susannelson.data;
+
+import com.google.common.primitives.UnsignedBytes;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Stores the words as UTF-8 bytes, sorted and packed end to end into a single array, with an offset table marking
+ * where each word starts. Lookups are a binary search that compares code points straight against the packed bytes.
+ * Uses a little more than one byte per character plus four bytes per word.
+ * The buffers are either on the heap or, for MAPPED storage, a memory mapped snapshot file that is not on the heap at
+ * all.
+ */
+final class PackedWordStore implements WordStore {
+
+    private final ByteBuffer bytes;
+    // offsets.get(i) is the start of word i, offsets.get(size) is the end of the last word
+    private final IntBuffer offsets;
+    private final Set<String> wordsView = new View();
+
+    PackedWordStore(final byte[] bytes, final int[] offsets) {
+        this(ByteBuffer.wrap(bytes), IntBuffer.wrap(offsets));
+    }
+
+    /**
+     * @param bytes - the packed words, from index 0 to the limit
+     * @param offsets - the word offsets, from index 0 to the limit
+     */
+    PackedWordStore(final ByteBuffer bytes, final IntBuffer offsets) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+    }
+
+    static PackedWordStore of(final Collection<String> words) {
+
+        byte[][] encoded = new byte[words.size()][];
+        int i = 0;
+        int length = 0;
+
+        for (String word : words) {
+
+            encoded[i] = word.getBytes(StandardCharsets.UTF_8);
+            length += encoded[i++].length;
+        }
+
+        // unsigned byte order of UTF-8 is code point order
+        Arrays.sort(encoded, UnsignedBytes.lexicographicalComparator());
+
+        byte[] bytes = new byte[length];
+        int[] offsets = new int[encoded.length + 1];
+        int position = 0;
+
+        for (i = 0; i < encoded.length; i++) {
+
+            offsets[i] = position;
+            System.arraycopy(encoded[i], 0, bytes, position, encoded[i].length);
+            position += encoded[i].length;
+        }
+
+        offsets[encoded.length] = position;
+
+        return new PackedWordStore(bytes, offsets);
+    }
+
+    @Override
+    public boolean contains(final CharSequence word, final boolean ignoreCase) {
+
+        return indexOf(word, ignoreCase) >= 0;
+    }
+
+    @Override
+    public String get(final CharSequence word, final boolean ignoreCase) {
+
+        int index = indexOf(word, ignoreCase);
+
+        return index >= 0 ? get(index) : null;
+    }
+
+    private int indexOf(final CharSequence word, final boolean ignoreCase) {
+
+        int low = 0;
+        int high = size() - 1;
+
+        while (low <= high) {
+
+            int middle = (low + high) >>> 1;
+            int comparison = compare(word, middle, ignoreCase);
+
+            if (comparison > 0) {
+                low = middle + 1;
+            } else if (comparison < 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public int size() {
+
+        return offsets.limit() - 1;
+    }
+
+    @Override
+    public void forEach(final Consumer<? super String> action) {
+
+        for (int i = 0; i < size(); i++) {
+            action.accept(get(i));
+        }
+    }
+
+    @Override
+    public Set<String> asSet() {
+
+        return wordsView;
+    }
+
+    @Override
+    public long memoryBytes() {
+
+        return (bytes.isDirect() ? 0 : HashWordStore.align(16L + bytes.limit()))
+                + (offsets.isDirect() ? 0 : HashWordStore.align(16L + 4L * offsets.limit()));
+    }
+
+    /**
+     * @return true if the words are held outside the heap.
+     */
+    boolean isDirect() {
+
+        return bytes.isDirect();
+    }
+
+    ByteBuffer bytes() {
+
+        return bytes.duplicate();
+    }
+
+    IntBuffer offsets() {
+
+        return offsets.duplicate();
+    }
+
+    String get(final int index) {
+
+        int start = offsets.get(index);
+        int length = offsets.get(index + 1) - start;
+
+        if (bytes.hasArray()) {
+
+            return new String(bytes.array(), bytes.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        }
+
+        byte[] copy = new byte[length];
+        ByteBuffer word = bytes.duplicate();
+        word.position(start);
+        word.get(copy);
+
+        return new String(copy, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compares the word to the packed word at the index, code point by code point.
+     */
+    private int compare(final CharSequence word, final int index, final boolean ignoreCase) {
+
+        int position = offsets.get(index);
+        int end = offsets.get(index + 1);
+        int i = 0;
+
+        while (i < word.length() && position < end) {
+
+            int wordCodePoint = Folding.fold(Character.codePointAt(word, i), ignoreCase);
+            int lead = bytes.get(position) & 0xFF;
+            int packedCodePoint;
+
+            if (lead < 0x80) {
+                packedCodePoint = lead;
+                position += 1;
+            } else if (lead < 0xE0) {
+                packedCodePoint = ((lead & 0x1F) << 6) | (bytes.get(position + 1) & 0x3F);
+                position += 2;
+            } else if (lead < 0xF0) {
+                packedCodePoint = ((lead & 0x0F) << 12) | ((bytes.get(position + 1) & 0x3F) << 6)
+                        | (bytes.get(position + 2) & 0x3F);
+                position += 3;
+            } else {
+                packedCodePoint = ((lead & 0x07) << 18) | ((bytes.get(position + 1) & 0x3F) << 12)
+                        | ((bytes.get(position + 2) & 0x3F) << 6) | (bytes.get(position + 3) & 0x3F);
+                position += 4;
+            }
+
+            if (wordCodePoint != packedCodePoint) {
+
+                return wordCodePoint < packedCodePoint ? -1 : 1;
+            }
+
+            i += Character.charCount(wordCodePoint);
+        }
+
+        if (i < word.length()) {
+
+            return 1;
+        }
+
+        return position < end ? -1 : 0;
+    }
+
+    private final class View extends AbstractSet<String> {
+
+        @Override
+        public boolean contains(final Object o) {
+
+            return (o instanceof CharSequence) && PackedWordStore.this.contains((CharSequence) o, false);
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+
+            return new Iterator<String>() {
+
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return next < PackedWordStore.this.size();
+                }
+
+                @Override
+                public String next() {
+
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+
+                    return get(next++);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+
+            return PackedWordStore.this.size();
+        }
+    }
+}
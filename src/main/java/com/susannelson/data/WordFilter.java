@@ -0,0 +1,179 @@
+package com.susannelson.data;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A blocked Bloom filter over the words of a Dictionary, which answers most lookups of words that are not in it
+ * before the word store is touched.
+ * Each word sets its bits within a single 512 bit block chosen by its hash, so a lookup reads one block, at most two
+ * cache lines, however many bits are tested. Blocking costs a little in false positives over a classic Bloom filter
+ * of the same size, which the sizing allows for. As in HashWordStore, the hash folds the case of ASCII letters, so the
+ * input is tested without a lowercase copy.
+ * Counts the lookups it rejects, those it passes, and the passed lookups the store did not find, its false positives.
+ */
+public final class WordFilter {
+
+    private static final int BLOCK_LONGS = 8;
+    private static final int BLOCK_BITS_MASK = 64 * BLOCK_LONGS - 1;
+    // each bit of a word within its block is the top 9 bits of its hash multiplied once more, which spreads the bits
+    // of the words sharing a block better than double hashing does
+    private static final long BIT_MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private static final int BIT_SHIFT = 64 - 9;
+    private static final int MAX_HASHES = 16;
+    // bits per word a blocked filter needs over those of a classic filter with the same false positive rate
+    private static final double BLOCKING_OVERHEAD = 1.2;
+
+    private final long[] bits;
+    private final int blocks;
+    private final int hashes;
+    private final double falsePositiveRate;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder passed = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    private WordFilter(final int blocks, final int hashes, final double falsePositiveRate) {
+        this.bits = new long[blocks * BLOCK_LONGS];
+        this.blocks = blocks;
+        this.hashes = hashes;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Builds a filter of the words, sized for the false positive rate.
+     * @throws IllegalArgumentException if the rate is not between 0 and 1.
+     */
+    static WordFilter build(final WordStore words, final double falsePositiveRate) {
+
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+
+        double classicBitsPerWord = -Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        int hashes = (int) Math.max(1, Math.min(MAX_HASHES, Math.round(classicBitsPerWord * Math.log(2))));
+        long totalBits = (long) Math.ceil(Math.max(1, words.size()) * classicBitsPerWord * BLOCKING_OVERHEAD);
+        int blocks = (int) Math.min(Integer.MAX_VALUE / BLOCK_LONGS,
+                (totalBits + BLOCK_BITS_MASK) / (BLOCK_BITS_MASK + 1));
+
+        WordFilter filter = new WordFilter(blocks, hashes, falsePositiveRate);
+        words.forEach(filter::put);
+
+        return filter;
+    }
+
+    private void put(final String word) {
+
+        long hash = hash(word);
+        int offset = blockOffset(hash);
+        long bitHash = hash;
+
+        for (int i = 0; i < hashes; i++) {
+
+            bitHash *= BIT_MULTIPLIER;
+            int bit = (int) (bitHash >>> BIT_SHIFT);
+            bits[offset + (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * @return false if the word is certainly not in the filter, true if it may be.
+     */
+    boolean mightContain(final CharSequence word) {
+
+        long hash = hash(word);
+        int offset = blockOffset(hash);
+        long bitHash = hash;
+
+        for (int i = 0; i < hashes; i++) {
+
+            bitHash *= BIT_MULTIPLIER;
+            int bit = (int) (bitHash >>> BIT_SHIFT);
+
+            if ((bits[offset + (bit >>> 6)] & (1L << bit)) == 0) {
+
+                rejected.increment();
+                return false;
+            }
+        }
+
+        passed.increment();
+        return true;
+    }
+
+    /**
+     * Records that a word the filter passed was not found.
+     */
+    void falsePositive() {
+
+        falsePositives.increment();
+    }
+
+    /**
+     * @return the index of the first long of the block, chosen by the high half of the hash.
+     */
+    private int blockOffset(final long hash) {
+
+        return (int) (((hash >>> 32) * blocks) >>> 32) * BLOCK_LONGS;
+    }
+
+    /**
+     * FNV-1a over the case folded characters, finished with the MurmurHash3 mix so every bit of the hash depends on
+     * every character.
+     */
+    private static long hash(final CharSequence word) {
+
+        long h = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < word.length(); i++) {
+            h = (h ^ Folding.fold(word.charAt(i), true)) * 0x100000001b3L;
+        }
+
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+
+        return h;
+    }
+
+    /**
+     * @return the false positive rate the filter was sized for.
+     */
+    public double getFalsePositiveRate() {
+
+        return falsePositiveRate;
+    }
+
+    /**
+     * @return the number of lookups answered by the filter, without touching the word store.
+     */
+    public long getRejected() {
+
+        return rejected.sum();
+    }
+
+    /**
+     * @return the number of lookups passed on to the word store.
+     */
+    public long getPassed() {
+
+        return passed.sum();
+    }
+
+    /**
+     * @return the number of lookups passed on to the word store that did not find a word.
+     */
+    public long getFalsePositives() {
+
+        return falsePositives.sum();
+    }
+
+    /**
+     * @return estimated number of heap bytes used by the filter.
+     */
+    public long memoryBytes() {
+
+        return HashWordStore.align(16 + 8L * bits.length);
+    }
+}
@@ -0,0 +1,139 @@
+package com.susannelson.data;
+
+import com.google.common.base.Splitter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * How often each word is used, for ranking suggestions.
+ * Loaded from a UTF-8 file with a word and its count on each line, separated by whitespace. Blank lines and lines
+ * starting with # are ignored, and words missing from the file have a count of 0.
+ */
+public final class WordFrequencies {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WordFrequencies.class);
+    private static final Splitter FIELDS = Splitter.on(Pattern.compile("\\s+")).omitEmptyStrings();
+
+    /**
+     * No counts, so every word is equally frequent.
+     */
+    public static final WordFrequencies EMPTY = new WordFrequencies(Collections.emptyMap());
+
+    private final Map<String, Long> counts;
+
+    private WordFrequencies(final Map<String, Long> counts) {
+        this.counts = counts;
+    }
+
+    /**
+     * Loads the counts of the words in the Dictionary from the file.
+     * @throws RuntimeException if the file cannot be read.
+     */
+    public static WordFrequencies load(final Path file, final Dictionary dict) {
+
+        Map<String, Long> counts = new HashMap<>(dict.size() * 2);
+        int skipped = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+
+                List<String> fields = FIELDS.splitToList(line);
+
+                if (fields.isEmpty() || fields.get(0).startsWith("#")) {
+
+                    continue;
+                }
+
+                Long count = (fields.size() == 2) ? parseCount(fields.get(1)) : null;
+                // share the dictionary's String rather than keeping the one read
+                String word = dict.get(fields.get(0)).orElse(null);
+
+                if (count == null || word == null) {
+
+                    skipped++;
+                    continue;
+                }
+
+                counts.merge(word, count, Long::sum);
+            }
+        } catch (Exception e) {
+
+            LOGGER.error("Trouble loading word frequencies from file: " + file, e);
+            throw new RuntimeException("Not able to load word frequencies: " + e.getMessage());
+        }
+
+        LOGGER.info("Word frequencies loaded for " + counts.size() + " words, skipping " + skipped
+                + " lines that were malformed or not dictionary words.");
+        return new WordFrequencies(counts);
+    }
+
+    private static Long parseCount(final String field) {
+
+        try {
+            long count = Long.parseLong(field);
+
+            return (count >= 0) ? count : null;
+
+        } catch (NumberFormatException e) {
+
+            return null;
+        }
+    }
+
+    /**
+     * @param word - lowercase word
+     * @return how often the word is used, 0 if it is not known.
+     */
+    public long get(final String word) {
+
+        Long count = counts.get(word);
+
+        return (count == null) ? 0 : count;
+    }
+
+    /**
+     * @return the number of words with a count.
+     */
+    public int size() {
+
+        return counts.size();
+    }
+
+    /**
+     * @param countWords - whether to count the String instances of the words, which are the Dictionary's own only in
+     *                     HASH storage.
+     * @return estimated number of heap bytes held by the counts.
+     */
+    public long memoryBytes(final boolean countWords) {
+
+        if (counts.isEmpty()) {
+
+            return 0;
+        }
+
+        // a table of about twice as many slots as words, then an entry and a Long for each word
+        long bytes = HashWordStore.align(16 + 4L * 2 * counts.size()) + (32L + 16L) * counts.size();
+
+        if (countWords) {
+
+            for (String word : counts.keySet()) {
+                bytes += HashWordStore.wordBytes(word);
+            }
+        }
+
+        return bytes;
+    }
+}
@@ -0,0 +1,184 @@
+package com.susannelson.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Reads a UTF-8 word list, one word per line, into lowercase words as the DictionaryBuilder would add them line by
+ * line, but in parallel: the whole list is read in large NIO blocks, split into chunks on line boundaries, and each
+ * chunk is decoded, lowercased and hashed into a set of its own on the common ForkJoinPool. The chunk sets are then
+ * merged, reusing the hash codes computed in parallel.
+ * Lines end with \n, \r or \r\n, as for BufferedReader.readLine(), and empty lines are skipped.
+ */
+final class WordListReader {
+
+    private static final int BLOCK_BYTES = 1 << 20;
+    // smaller chunks cost more to merge than they save
+    private static final int MIN_CHUNK_BYTES = 256 * 1024;
+    // about 10 bytes per line in the bundled word list
+    private static final int BYTES_PER_WORD = 10;
+
+    private final byte[] bytes;
+    private final int length;
+
+    private WordListReader(final byte[] bytes, final int length) {
+        this.bytes = bytes;
+        this.length = length;
+    }
+
+    /**
+     * Reads the whole of the channel, which is not closed.
+     */
+    static WordListReader read(final ReadableByteChannel channel) throws IOException {
+
+        long size = (channel instanceof FileChannel) ? ((FileChannel) channel).size() : BLOCK_BYTES;
+
+        if (size > Integer.MAX_VALUE - 8) {
+
+            throw new IOException("Word list is too large: " + size + " bytes.");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(size, 16));
+
+        while (true) {
+
+            if (!buffer.hasRemaining()) {
+
+                ByteBuffer larger = ByteBuffer.allocate((int) Math.min(Integer.MAX_VALUE - 8L,
+                        2L * buffer.capacity()));
+                buffer.flip();
+                buffer = larger.put(buffer);
+            }
+
+            if (channel.read(buffer) < 0) {
+
+                break;
+            }
+        }
+
+        return new WordListReader(buffer.array(), buffer.position());
+    }
+
+    /**
+     * @return the number of bytes read.
+     */
+    int length() {
+
+        return length;
+    }
+
+    /**
+     * @return the number of chunks the words will be read in, one per available processor for large lists.
+     */
+    int chunks() {
+
+        return Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), length / MIN_CHUNK_BYTES));
+    }
+
+    /**
+     * Adds the lowercase words to the set.
+     */
+    void addTo(final Set<String> words) {
+
+        addTo(words, chunks());
+    }
+
+    /**
+     * Adds the lowercase words to the set, read in the number of chunks.
+     */
+    void addTo(final Set<String> words, final int chunks) {
+
+        int[] bounds = new int[chunks + 1];
+        bounds[chunks] = length;
+
+        for (int i = 1; i < chunks; i++) {
+            bounds[i] = lineStart(Math.max(bounds[i - 1], (int) ((long) length * i / chunks)));
+        }
+
+        if (chunks == 1) {
+
+            addWords(bounds[0], bounds[1], words);
+            return;
+        }
+
+        List<Set<String>> parsed = IntStream.range(0, chunks).parallel()
+                .mapToObj(i -> {
+                    int expectedWords = (bounds[i + 1] - bounds[i]) / BYTES_PER_WORD;
+                    Set<String> chunk = new HashSet<>(Math.max(16, expectedWords * 4 / 3));
+                    addWords(bounds[i], bounds[i + 1], chunk);
+                    return chunk;
+                })
+                .collect(Collectors.toCollection(ArrayList::new));
+
+        for (Set<String> chunk : parsed) {
+            words.addAll(chunk);
+        }
+    }
+
+    /**
+     * @return the start of the first line at or after the position, skipping to the end of the line it is in.
+     */
+    private int lineStart(int position) {
+
+        if (position == 0) {
+
+            return 0;
+        }
+
+        while (position < length && !isLineEnd(bytes[position - 1])) {
+            position++;
+        }
+
+        return position;
+    }
+
+    private void addWords(final int from, final int to, final Set<String> words) {
+
+        int start = from;
+
+        for (int i = from; i <= to; i++) {
+
+            if (i == to || isLineEnd(bytes[i])) {
+
+                if (i > start) {
+                    words.add(word(start, i));
+                }
+
+                start = i + 1;
+            }
+        }
+    }
+
+    /**
+     * @return the line as a lowercase String, decoded without a lowercase copy when it is lowercase ASCII already.
+     */
+    private String word(final int from, final int to) {
+
+        for (int i = from; i < to; i++) {
+
+            byte b = bytes[i];
+
+            if (b < 0 || (b >= 'A' && b <= 'Z')) {
+
+                return new String(bytes, from, to - from, StandardCharsets.UTF_8).toLowerCase();
+            }
+        }
+
+        return new String(bytes, from, to - from, StandardCharsets.ISO_8859_1);
+    }
+
+    private static boolean isLineEnd(final byte b) {
+
+        return b == '\n' || b == '\r';
+    }
+}
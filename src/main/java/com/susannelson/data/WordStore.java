@@ -0,0 +1,33 @@
+package com.susannelson.data;
+
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Backing storage for the words of a {@link Dictionary}.
+ * Words are stored exactly as given, which is lowercase when built by the DictionaryBuilder.
+ * Lookups optionally ignore the case of ASCII letters in the input; any other case handling is done by the Dictionary.
+ */
+interface WordStore {
+
+    boolean contains(CharSequence word, boolean ignoreCase);
+
+    /**
+     * @return the stored word equal to the input, or null if there is none.
+     */
+    String get(CharSequence word, boolean ignoreCase);
+
+    int size();
+
+    void forEach(Consumer<? super String> action);
+
+    /**
+     * @return read-only view of the stored words.
+     */
+    Set<String> asSet();
+
+    /**
+     * @return estimated number of heap bytes used by the stored words.
+     */
+    long memoryBytes();
+}
@@ -0,0 +1,136 @@
+package com.susannelson.resource;
+
+import com.codahale.metrics.MetricRegistry;
+import com.susannelson.service.SpellCheckService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Operations on the running service, only available from the local host.
+ */
+@Path("/admin")
+@Component
+public class AdminResource {
+
+    private final SpellCheckService service;
+    private final MetricRegistry metrics;
+
+    @Autowired
+    public AdminResource(SpellCheckService service, MetricRegistry metrics) {
+        this.service = service;
+        this.metrics = metrics;
+    }
+
+    @GET
+    @Path("/dictionary")
+    @Produces({MediaType.APPLICATION_JSON})
+    /**
+     * @returns DictionaryResponse describing the dictionary version in use.
+     */
+    public DictionaryResponse getDictionary(@Context HttpServletRequest request) {
+
+        LocalAccess.check(request);
+
+        return new DictionaryResponse(service.getDictionaryInfo());
+    }
+
+    @POST
+    @Path("/dictionary/reload")
+    @Produces({MediaType.APPLICATION_JSON})
+    /**
+     * Reloads the word list and returns once the new dictionary version is in use.
+     * Spelling requests carry on against the previous version while it is built.
+     * @see SpellCheckService#reloadDictionary()
+     * @returns DictionaryResponse describing the new dictionary version.
+     * @throws IllegalStateException if the word list could not be loaded, leaving the previous version in use.
+     */
+    public DictionaryResponse reloadDictionary(@Context HttpServletRequest request) throws InterruptedException {
+
+        LocalAccess.check(request);
+
+        try {
+            return new DictionaryResponse(service.reloadDictionary().get());
+
+        } catch (ExecutionException e) {
+
+            throw new IllegalStateException("Dictionary reload failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    @GET
+    @Path("/metrics")
+    @Produces({MediaType.APPLICATION_JSON})
+    /**
+     * The same metrics are published over JMX in the "spelling" domain, unless spelling.metrics.jmx is false.
+     * @returns MetricsResponse with the current value of every metric.
+     */
+    public MetricsResponse getMetrics(@Context HttpServletRequest request) {
+
+        LocalAccess.check(request);
+
+        return new MetricsResponse(metrics);
+    }
+
+    @GET
+    @Path("/tenants/{tenant}/words")
+    @Produces({MediaType.APPLICATION_JSON})
+    /**
+     * @see SpellCheckService#getTenantWords(String)
+     * @returns TenantWordsResponse with the tenant's own words.
+     */
+    public TenantWordsResponse getTenantWords(@Context HttpServletRequest request,
+                                              @PathParam("tenant") String tenant) {
+
+        LocalAccess.check(request);
+
+        return new TenantWordsResponse(tenant, service.getTenantWords(tenant));
+    }
+
+    @POST
+    @Path("/tenants/{tenant}/words")
+    @Consumes({MediaType.APPLICATION_JSON})
+    @Produces({MediaType.APPLICATION_JSON})
+    /**
+     * Adds the words, as a JSON array, to the tenant's own words. They are correct for /spelling/{word}?tenant=
+     * from the next request on, but are kept in memory only, so are lost when the service restarts.
+     * @see SpellCheckService#addTenantWords(String, java.util.Collection)
+     * @returns TenantWordsResponse with the tenant's own words.
+     * @throws IllegalArgumentException if there are no words.
+     */
+    public TenantWordsResponse addTenantWords(@Context HttpServletRequest request,
+                                              @PathParam("tenant") String tenant, List<String> words) {
+
+        LocalAccess.check(request);
+
+        if (words == null) {
+
+            throw new IllegalArgumentException("Input must not be null.");
+        }
+
+        return new TenantWordsResponse(tenant, service.addTenantWords(tenant, words));
+    }
+
+    @DELETE
+    @Path("/tenants/{tenant}/words/{word}")
+    @Produces({MediaType.APPLICATION_JSON})
+    /**
+     * Removes the word from the tenant's own words.
+     * @see SpellCheckService#removeTenantWords(String, java.util.Collection)
+     * @returns TenantWordsResponse with the tenant's remaining words.
+     */
+    public TenantWordsResponse removeTenantWord(@Context HttpServletRequest request,
+                                                @PathParam("tenant") String tenant, @PathParam("word") String word) {
+
+        LocalAccess.check(request);
+
+        return new TenantWordsResponse(tenant, service.removeTenantWords(tenant, Collections.singleton(word)));
+    }
+}
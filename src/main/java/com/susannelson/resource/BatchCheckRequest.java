@@ -0,0 +1,18 @@
+package com.susannelson.resource;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class BatchCheckRequest {
+
+    private final String text;
+
+    @JsonCreator
+    public BatchCheckRequest(@JsonProperty("text") String text) {
+        this.text = text;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
@@ -0,0 +1,25 @@
+package com.susannelson.resource;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchCheckResponse {
+
+    private final int uniqueWords;
+    private final List<TokenCheckResponse> tokens;
+
+    public BatchCheckResponse(int uniqueWords, List<TokenCheckResponse> tokens) {
+        this.uniqueWords = uniqueWords;
+        this.tokens = tokens;
+    }
+
+    public int getUniqueWords() {
+        return uniqueWords;
+    }
+
+    public List<TokenCheckResponse> getTokens() {
+        return tokens;
+    }
+}
@@ -0,0 +1,48 @@
+package com.susannelson.resource;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.susannelson.service.DictionaryInfo;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DictionaryResponse {
+
+    private final long version;
+    private final String source;
+    private final String storage;
+    private final int words;
+    private final long loadedAt;
+    private final long memoryBytes;
+
+    public DictionaryResponse(DictionaryInfo info) {
+        this.version = info.getVersion();
+        this.source = info.getSource();
+        this.storage = info.getStorage().name();
+        this.words = info.getWords();
+        this.loadedAt = info.getLoadedAt();
+        this.memoryBytes = info.getMemoryBytes();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getStorage() {
+        return storage;
+    }
+
+    public int getWords() {
+        return words;
+    }
+
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+}
@@ -0,0 +1,8 @@
+package com.susannelson.resource;
+
+public class LanguageNotFoundException extends RuntimeException {
+
+    public LanguageNotFoundException(String message) {
+        super(message);
+    }
+}
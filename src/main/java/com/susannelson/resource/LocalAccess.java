@@ -0,0 +1,33 @@
+package com.susannelson.resource;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.ForbiddenException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Restricts the admin resources to requests made from the local host.
+ * Behind a proxy on the same host every request appears local, so the admin paths must not be proxied.
+ */
+final class LocalAccess {
+
+    private LocalAccess() {
+    }
+
+    /**
+     * @throws ForbiddenException if the request did not come from a loopback address.
+     */
+    static void check(final HttpServletRequest request) {
+
+        try {
+            if (InetAddress.getByName(request.getRemoteAddr()).isLoopbackAddress()) {
+
+                return;
+            }
+        } catch (UnknownHostException e) {
+            // not an address, so not local
+        }
+
+        throw new ForbiddenException("Admin request from " + request.getRemoteAddr());
+    }
+}
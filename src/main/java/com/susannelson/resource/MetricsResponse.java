@@ -0,0 +1,81 @@
+package com.susannelson.resource;
+
+import com.codahale.metrics.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point in time view of the metrics in a MetricRegistry, by name. Rates are per second and times in milliseconds.
+ */
+public class MetricsResponse {
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final SortedMap<String, Object> gauges = new TreeMap<>();
+    private final SortedMap<String, Long> counters = new TreeMap<>();
+    private final SortedMap<String, Map<String, Number>> meters = new TreeMap<>();
+    private final SortedMap<String, Map<String, Number>> histograms = new TreeMap<>();
+    private final SortedMap<String, Map<String, Number>> timers = new TreeMap<>();
+
+    public MetricsResponse(MetricRegistry metrics) {
+
+        metrics.getGauges().forEach((name, gauge) -> gauges.put(name, gauge.getValue()));
+        metrics.getCounters().forEach((name, counter) -> counters.put(name, counter.getCount()));
+        metrics.getMeters().forEach((name, meter) -> meters.put(name, rates(meter)));
+        metrics.getHistograms().forEach((name, histogram) ->
+                histograms.put(name, distribution(histogram.getCount(), histogram.getSnapshot(), 1)));
+        metrics.getTimers().forEach((name, timer) -> {
+            Map<String, Number> values = distribution(timer.getCount(), timer.getSnapshot(), NANOS_PER_MILLI);
+            values.putAll(rates(timer));
+            timers.put(name, values);
+        });
+    }
+
+    private static Map<String, Number> rates(Metered metered) {
+
+        Map<String, Number> toReturn = new LinkedHashMap<>();
+        toReturn.put("count", metered.getCount());
+        toReturn.put("m1Rate", metered.getOneMinuteRate());
+        toReturn.put("m15Rate", metered.getFifteenMinuteRate());
+
+        return toReturn;
+    }
+
+    private static Map<String, Number> distribution(long count, Snapshot snapshot, double unit) {
+
+        Map<String, Number> toReturn = new LinkedHashMap<>();
+        toReturn.put("count", count);
+        toReturn.put("min", snapshot.getMin() / unit);
+        toReturn.put("mean", snapshot.getMean() / unit);
+        toReturn.put("p50", snapshot.getMedian() / unit);
+        toReturn.put("p99", snapshot.get99thPercentile() / unit);
+        toReturn.put("p999", snapshot.get999thPercentile() / unit);
+        toReturn.put("max", snapshot.getMax() / unit);
+
+        return toReturn;
+    }
+
+    public SortedMap<String, Object> getGauges() {
+        return gauges;
+    }
+
+    public SortedMap<String, Long> getCounters() {
+        return counters;
+    }
+
+    public SortedMap<String, Map<String, Number>> getMeters() {
+        return meters;
+    }
+
+    public SortedMap<String, Map<String, Number>> getHistograms() {
+        return histograms;
+    }
+
+    public SortedMap<String, Map<String, Number>> getTimers() {
+        return timers;
+    }
+}
@@ -6,7 +6,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 
+import javax.ws.rs.ForbiddenException;
 import javax.ws.rs.NotFoundException;
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.ExceptionMapper;
@@ -20,12 +23,16 @@ public class RESTExceptionMapper implements ExceptionMapper<Exception> {
 
     private static Logger LOGGER = LoggerFactory.getLogger(RESTExceptionMapper.class);
 
+    static final String MISSING_WORD = "Please supply the word to check.";
+
     @Override
     /**
      * Handles exceptions by returning an appropriate http status code and json message depending on the exception type.
-     * Returns 400 for MissingServletRequestParameterException.
-     * Returns 404 for WordNotFoundException.
+     * Returns 400 for MissingServletRequestParameterException, and for IllegalArgumentException with its own message.
+     * Returns 403 for ForbiddenException.
+     * Returns 404 for WordNotFoundException and LanguageNotFoundException.
      * Returns 501 for NotFoundException.
+     * Returns 503 for ServiceUnavailableException, with its Retry-After header.
      * Returns 500 for all other exceptions.
      * @returns Response with ErrorResponse body.
      */
@@ -34,11 +41,23 @@ public class RESTExceptionMapper implements ExceptionMapper<Exception> {
         Object entity;
         int httpStatusCode;
 
-        if (e instanceof MissingServletRequestParameterException || e instanceof IllegalArgumentException) {
+        if (e instanceof MissingServletRequestParameterException) {
 
             HttpStatus status = HttpStatus.BAD_REQUEST;
             httpStatusCode = 400;
-            entity = new ErrorResponse(status.value(), "Please supply the word to check.");
+            entity = new ErrorResponse(status.value(), MISSING_WORD);
+
+        } else if (e instanceof IllegalArgumentException) {
+
+            HttpStatus status = HttpStatus.BAD_REQUEST;
+            httpStatusCode = 400;
+            entity = new ErrorResponse(status.value(), (e.getMessage() != null) ? e.getMessage() : MISSING_WORD);
+
+        } else if (e instanceof ForbiddenException) {
+
+            HttpStatus status = HttpStatus.FORBIDDEN;
+            httpStatusCode = 403;
+            entity = new ErrorResponse(status.value(), "This resource is only available from the local host.");
 
         } else if (e instanceof WordNotFoundException) {
 
@@ -46,11 +65,28 @@ public class RESTExceptionMapper implements ExceptionMapper<Exception> {
             httpStatusCode = 404;
             entity = new ErrorResponse(status.value(), "The word was not found.");
 
+        } else if (e instanceof LanguageNotFoundException) {
+
+            HttpStatus status = HttpStatus.NOT_FOUND;
+            httpStatusCode = 404;
+            entity = new ErrorResponse(status.value(), "There is no dictionary for the language.");
+
         }else if (e instanceof NotFoundException) {
 
             HttpStatus status = HttpStatus.NOT_IMPLEMENTED;
             httpStatusCode = 501;
             entity = new ErrorResponse(status.value(), "There is no resource available at this URL.");
+
+        } else if (e instanceof ServiceUnavailableException) {
+
+            HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+            httpStatusCode = 503;
+            entity = new ErrorResponse(status.value(), "The server is busy, please try again later.");
+
+            return Response.status(httpStatusCode).entity(entity).type(MediaType.APPLICATION_JSON_TYPE)
+                    .header(HttpHeaders.RETRY_AFTER, ((ServiceUnavailableException) e).getResponse()
+                            .getHeaderString(HttpHeaders.RETRY_AFTER))
+                    .build();
         } else {
             LOGGER.error("Something really bad happened: " + e.getMessage());
             LOGGER.error("Caught exception: ", e);
@@ -1,17 +1,28 @@
 package com.susannelson.resource;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.susannelson.config.SpellingProperties;
 import com.susannelson.service.SpellCheckService;
+import com.susannelson.service.WordCase;
+import com.susannelson.service.WordTokenizer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import javax.ws.rs.GET;
-import javax.ws.rs.Path;
-import javax.ws.rs.PathParam;
-import javax.ws.rs.Produces;
+import javax.annotation.PreDestroy;
+import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Path("/spelling")
 @Component
@@ -19,11 +30,62 @@ public class SpellingResource {
 
     //private static final Logger LOGGER = LoggerFactory.getLogger(SpellingResource.class);
 
+    // seconds a client turned away with a 503 is asked to wait before trying again
+    private static final long RETRY_AFTER_SECONDS = 1;
+
     private final SpellCheckService service;
+    // words are checked in when no language is given
+    private final String defaultLanguage;
+    // null when suggestions are made on the container thread
+    private final ThreadPoolExecutor suggestionExecutor;
+    private final long timeoutMillis;
+    private final Timer checkTimer;
+    private final Meter correct;
+    private final Meter caseErrors;
+    private final Meter suggested;
+    private final Meter notFound;
+    private final Meter rejected;
+    private final Meter timedOut;
 
     @Autowired
-    public SpellingResource(SpellCheckService service) {
+    public SpellingResource(SpellCheckService service, MetricRegistry metrics, SpellingProperties properties) {
         this.service = service;
+        this.defaultLanguage = properties.getDictionary().getLanguage();
+        this.suggestionExecutor = properties.getAsync().isEnabled() ?
+                newSuggestionExecutor(properties.getAsync()) : null;
+        this.timeoutMillis = properties.getAsync().getTimeoutMillis();
+        this.checkTimer = metrics.timer("spelling.check");
+        this.correct = metrics.meter("spelling.check.correct");
+        this.caseErrors = metrics.meter("spelling.check.case-error");
+        this.suggested = metrics.meter("spelling.check.suggestions");
+        this.notFound = metrics.meter("spelling.check.not-found");
+        this.rejected = metrics.meter("spelling.check.rejected");
+        this.timedOut = metrics.meter("spelling.check.timed-out");
+
+        if (suggestionExecutor != null) {
+
+            metrics.register("spelling.check.queue", (Gauge<Integer>) () -> suggestionExecutor.getQueue().size());
+        }
+    }
+
+    /**
+     * A fixed pool whose bounded queue rejects, rather than blocks, the suggestion requests it has no room for.
+     */
+    private static ThreadPoolExecutor newSuggestionExecutor(SpellingProperties.Async async) {
+
+        return new ThreadPoolExecutor(async.getThreads(), async.getThreads(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, async.getQueueCapacity())),
+                new ThreadFactoryBuilder().setNameFormat("suggestions-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void close() {
+
+        if (suggestionExecutor != null) {
+
+            suggestionExecutor.shutdownNow();
+        }
     }
 
     @GET
@@ -35,7 +97,7 @@ public class SpellingResource {
      */
     public String missingWord() {
 
-        throw new IllegalArgumentException("Input must be at least one character.");
+        throw new IllegalArgumentException(RESTExceptionMapper.MISSING_WORD);
     }
 
     @GET
@@ -45,17 +107,250 @@ public class SpellingResource {
      * Checks the spelling of the input word and returns a list of spelling suggestions if not spelled correctly.
      * Uses the SpellCheckService to get the word (in lowercase) from the Dictionary.
      * If the word is found and the case is correct, returns response with correct: true.
-     * If the word is found and the case is not correct, returns correct:false and the word from the Dictionary in lowercase.
-     * If the word is not found, returns correct:false and a list of suggestions.
-     * @see SpellCheckService#isCaseCorrect(String)
-     * @see SpellCheckService#getSpellingSuggestions(String)
+     * If the word is found and the case is not correct, returns correct:false and the word from the Dictionary in
+     * lowercase, preceded by its Title form when the input starts with an uppercase character.
+     * If the word is not found, returns correct:false and a list of suggestions, in the case form of the input when it
+     * is UPPER or Title.
+     * Words found in the Dictionary are answered on the container thread. Unless SpellingProperties.Async is disabled,
+     * suggestions are made on a bounded pool so they cannot hold up those cheap requests; when its queue is full, or
+     * the suggestions take longer than the timeout, the request gets a 503.
+     * Timed by spelling.check, with each outcome counted by
+     * spelling.check.{correct, case-error, suggestions, not-found} and turned away requests by
+     * spelling.check.{rejected, timed-out}.
+     * Words are checked in the default language, see SpellingProperties.Dictionary#getLanguage, and with a tenant,
+     * against its own words as well.
+     * @see SpellCheckService#getWordCase(String)
+     * @see SpellCheckService#getSpellingSuggestions(String, String, String)
      * @param word - the word to be checked.
-     * @returns SpellingCheckResponse
+     * @param tenant - optional name of the tenant whose words are also correct, see AdminResource.
+     * @param response - resumed with SpellingCheckResponse.
      * @throws WordNotFoundException if the word is not found and no spelling suggestions are found.
+     * @throws ServiceUnavailableException if there is no room to make suggestions, or they take too long.
+     */
+    public void isSpellingCorrect(@PathParam("word") String word, @QueryParam("tenant") String tenant,
+                                  @Suspended AsyncResponse response) {
+
+        checkAsync(defaultLanguage, tenant, word, response);
+    }
+
+    @GET
+    @Path("/{language}/{word}")
+    @Produces({MediaType.APPLICATION_JSON})
+    /**
+     * Checks the spelling of the input word in the language, as /spelling/{word} does in the default language.
+     * The language's dictionary is loaded on first use.
+     * @see #isSpellingCorrect(String, String, AsyncResponse)
+     * @see SpellCheckService#getLanguages()
+     * @param language - name of the language, in any case.
+     * @param word - the word to be checked.
+     * @param tenant - optional name of the tenant whose words are also correct.
+     * @param response - resumed with SpellingCheckResponse.
+     * @throws LanguageNotFoundException if there is no dictionary for the language.
+     */
+    public void isSpellingCorrectIn(@PathParam("language") String language, @PathParam("word") String word,
+                                    @QueryParam("tenant") String tenant, @Suspended AsyncResponse response) {
+
+        try {
+            checkLanguage(language);
+
+        } catch (LanguageNotFoundException e) {
+
+            response.resume(e);
+            return;
+        }
+
+        checkAsync(language, tenant, word, response);
+    }
+
+    /**
+     * @throws LanguageNotFoundException if there is no dictionary for the language.
      */
-    public SpellingCheckResponse isSpellingCorrect(@PathParam("word") String word) {
+    private void checkLanguage(String language) {
+
+        if (!service.getLanguages().contains(language.toLowerCase(Locale.ROOT))) {
+
+            throw new LanguageNotFoundException("No dictionary for language: " + language);
+        }
+    }
+
+    private void checkAsync(String language, String tenant, String word, AsyncResponse response) {
         //TODO add input validation
-        Optional<String> wordFromDictionary = service.getWordInLowercase(word);
+        Optional<String> wordFromDictionary;
+
+        try {
+            wordFromDictionary = service.getWordInLowercase(language, tenant, word);
+
+        } catch (RuntimeException e) {
+
+            response.resume(e);
+            return;
+        }
+
+        if (suggestionExecutor == null || wordFromDictionary.isPresent()) {
+
+            resume(response, language, tenant, word, wordFromDictionary);
+            return;
+        }
+
+        if (timeoutMillis > 0) {
+
+            response.setTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+            response.setTimeoutHandler(timedOutResponse -> {
+                timedOut.mark();
+                timedOutResponse.resume(new ServiceUnavailableException(RETRY_AFTER_SECONDS));
+            });
+        }
+
+        try {
+            suggestionExecutor.execute(() -> {
+
+                // nobody is waiting for the suggestions of a request that has timed out
+                if (response.isSuspended()) {
+
+                    resume(response, language, tenant, word, wordFromDictionary);
+                }
+            });
+
+        } catch (RejectedExecutionException e) {
+
+            rejected.mark();
+            response.resume(new ServiceUnavailableException(RETRY_AFTER_SECONDS));
+        }
+    }
+
+    private void resume(AsyncResponse response, String language, String tenant, String word,
+                        Optional<String> wordFromDictionary) {
+
+        try {
+            response.resume(checkWord(language, tenant, word, wordFromDictionary));
+
+        } catch (RuntimeException e) {
+
+            response.resume(e);
+        }
+    }
+
+    private SpellingCheckResponse checkWord(String language, String tenant, String word,
+                                            Optional<String> wordFromDictionary) {
+
+        try (Timer.Context ignored = checkTimer.time()) {
+
+            if (wordFromDictionary.isPresent()) {
+
+                if (service.isCaseCorrect(word)) {
+
+                    correct.mark();
+                    return new SpellingCheckResponse(true, null);
+                }
+
+                caseErrors.mark();
+                return new SpellingCheckResponse(false, caseSuggestions(word, wordFromDictionary.get()));
+            }
+
+            Set<String> suggestions = inCaseOf(service.getWordCase(word),
+                    service.getSpellingSuggestions(language, tenant, word));
+
+            if (suggestions.isEmpty()) {
+
+                notFound.mark();
+                throw new WordNotFoundException("Word not found: " + word);
+            }
+
+            suggested.mark();
+            return new SpellingCheckResponse(false, suggestions);
+        }
+    }
+
+    @POST
+    @Path("/_batch")
+    @Consumes({MediaType.APPLICATION_JSON})
+    @Produces({MediaType.APPLICATION_JSON})
+    /**
+     * Checks the spelling of every word in the text of the request, as {"text": "..."}.
+     * The batch paths start with an underscore, which no word does, so they cannot be taken for /spelling/{word}.
+     * @see #checkDocument(String, String)
+     * @param request - holds the text to be checked.
+     * @param tenant - optional name of the tenant whose words are also correct.
+     * @returns BatchCheckResponse
+     * @throws IllegalArgumentException if the request has no text.
+     */
+    public BatchCheckResponse checkBatch(BatchCheckRequest request, @QueryParam("tenant") String tenant) {
+
+        return checkBatchIn(defaultLanguage, request, tenant);
+    }
+
+    @POST
+    @Path("/{language}/_batch")
+    @Consumes({MediaType.APPLICATION_JSON})
+    @Produces({MediaType.APPLICATION_JSON})
+    /**
+     * Checks the spelling of every word in the text of the request in the language.
+     * @see #checkBatch(BatchCheckRequest, String)
+     * @throws LanguageNotFoundException if there is no dictionary for the language.
+     */
+    public BatchCheckResponse checkBatchIn(@PathParam("language") String language, BatchCheckRequest request,
+                                           @QueryParam("tenant") String tenant) {
+
+        if (request == null || request.getText() == null) {
+
+            throw new IllegalArgumentException("Input must not be null.");
+        }
+
+        return checkDocumentIn(language, request.getText(), tenant);
+    }
+
+    @POST
+    @Path("/_batch")
+    @Consumes({MediaType.TEXT_PLAIN})
+    @Produces({MediaType.APPLICATION_JSON})
+    /**
+     * Checks the spelling of every word in a plain text document.
+     * The document is split into words, and each distinct word is checked once, however often it is repeated.
+     * Returns a result for each word in document order, with its character offset in the document, the same as
+     * /spelling/{word} would return for it in the language and for the tenant.
+     * Words that are not found and have no spelling suggestions are returned with correct:false and no suggestions.
+     * @param text - the document to be checked.
+     * @param tenant - optional name of the tenant whose words are also correct.
+     * @returns BatchCheckResponse
+     */
+    public BatchCheckResponse checkDocument(String text, @QueryParam("tenant") String tenant) {
+
+        return checkDocumentIn(defaultLanguage, text, tenant);
+    }
+
+    @POST
+    @Path("/{language}/_batch")
+    @Consumes({MediaType.TEXT_PLAIN})
+    @Produces({MediaType.APPLICATION_JSON})
+    /**
+     * Checks the spelling of every word in a plain text document in the language.
+     * @see #checkDocument(String, String)
+     * @throws LanguageNotFoundException if there is no dictionary for the language.
+     */
+    public BatchCheckResponse checkDocumentIn(@PathParam("language") String language, String text,
+                                              @QueryParam("tenant") String tenant) {
+
+        checkLanguage(language);
+        Map<String, SpellingCheckResponse> checked = new HashMap<>();
+        List<TokenCheckResponse> tokens = new ArrayList<>();
+
+        for (WordTokenizer.Token token : WordTokenizer.tokenize(Objects.toString(text, ""))) {
+
+            SpellingCheckResponse response = checked.computeIfAbsent(token.getWord(),
+                    w -> check(service, language, tenant, w));
+            tokens.add(new TokenCheckResponse(token.getWord(), token.getOffset(), response.isCorrect(),
+                    response.getSuggestions()));
+        }
+
+        return new BatchCheckResponse(checked.size(), tokens);
+    }
+
+    /**
+     * Returns correct:true, or correct:false with the suggestions, which are empty if the word was not found.
+     */
+    static SpellingCheckResponse check(SpellCheckService service, String language, String tenant, String word) {
+
+        Optional<String> wordFromDictionary = service.getWordInLowercase(language, tenant, word);
 
         if (wordFromDictionary.isPresent()) {
 
@@ -63,17 +358,47 @@ public class SpellingResource {
 
                 return new SpellingCheckResponse(true, null);
             } else {
-                return new SpellingCheckResponse(false, ImmutableSet.of(wordFromDictionary.get()));
+                return new SpellingCheckResponse(false, caseSuggestions(word, wordFromDictionary.get()));
             }
-        } else {
-            Set<String> suggestions = service.getSpellingSuggestions(word);
+        }
 
-            if (!suggestions.isEmpty()) {
+        return new SpellingCheckResponse(false,
+                inCaseOf(service.getWordCase(word), service.getSpellingSuggestions(language, tenant, word)));
+    }
 
-                return new SpellingCheckResponse(false, suggestions );
-            }
+    /**
+     * The word from the Dictionary, preceded by its Title form when the input starts with an uppercase character, so
+     * "HeLLo" gets "Hello" and "hello".
+     */
+    private static Set<String> caseSuggestions(String word, String lowercaseWord) {
+
+        int first = word.codePointAt(0);
 
-            throw new WordNotFoundException("Word not found: " + word);
+        if (Character.isUpperCase(first) || Character.isTitleCase(first)) {
+
+            return ImmutableSet.of(WordCase.TITLE.apply(lowercaseWord), lowercaseWord);
         }
+
+        return ImmutableSet.of(lowercaseWord);
+    }
+
+    /**
+     * The suggestions in the case form of the input, in the same order, so "Wrld" gets "World" and "WRLD" gets
+     * "WORLD". Suggestions for lowercase or MIXED input are returned as they are.
+     */
+    private static Set<String> inCaseOf(WordCase wordCase, Set<String> suggestions) {
+
+        if (suggestions.isEmpty() || (wordCase != WordCase.UPPER && wordCase != WordCase.TITLE)) {
+
+            return suggestions;
+        }
+
+        Set<String> toReturn = new LinkedHashSet<>();
+
+        for (String suggestion : suggestions) {
+            toReturn.add(wordCase.apply(suggestion));
+        }
+
+        return toReturn;
     }
 }
@@ -0,0 +1,113 @@
+package com.susannelson.resource;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.susannelson.config.SpellingProperties;
+import com.susannelson.service.SpellCheckService;
+import com.susannelson.service.WordTokenizer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+@Path("/spelling")
+@Component
+public class SpellingStreamResource {
+
+    static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private static final ObjectWriter JSON_LINE = new ObjectMapper().writer()
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private final SpellCheckService service;
+    private final String defaultLanguage;
+
+    @Autowired
+    public SpellingStreamResource(SpellCheckService service, SpellingProperties properties) {
+        this.service = service;
+        this.defaultLanguage = properties.getDictionary().getLanguage();
+    }
+
+    @POST
+    @Path("/_batch/stream")
+    @Consumes({MediaType.TEXT_PLAIN})
+    @Produces({APPLICATION_NDJSON})
+    /**
+     * Checks the spelling of every word in a plain text document of any size, without buffering it.
+     * The request body is read and split into words as it arrives, and a line of JSON is written for each word that
+     * is not spelled correctly as soon as it is checked, so memory use does not depend on the size of the document.
+     * Each line is flushed to the client as it is written, rather than waiting for the container's buffer to fill.
+     * Unlike /spelling/_batch, repeated words are checked each time they appear; the suggestion cache absorbs the cost.
+     * @see SpellingResource#checkDocument(String, String)
+     * @param body - the document to be checked, in the charset of the Content-Type (UTF-8 by default).
+     * @param tenant - optional name of the tenant whose words are also correct.
+     * @returns StreamingOutput of TokenCheckResponse, one per line.
+     */
+    public StreamingOutput checkStream(InputStream body, @QueryParam("tenant") String tenant,
+                                       @Context HttpHeaders headers) {
+
+        return checkStreamIn(defaultLanguage, body, tenant, headers);
+    }
+
+    @POST
+    @Path("/{language}/_batch/stream")
+    @Consumes({MediaType.TEXT_PLAIN})
+    @Produces({APPLICATION_NDJSON})
+    /**
+     * Checks the spelling of every word in a plain text document of any size in the language.
+     * @see #checkStream(InputStream, String, HttpHeaders)
+     * @throws LanguageNotFoundException if there is no dictionary for the language.
+     */
+    public StreamingOutput checkStreamIn(@PathParam("language") String language, InputStream body,
+                                         @QueryParam("tenant") String tenant, @Context HttpHeaders headers) {
+
+        if (!service.getLanguages().contains(language.toLowerCase(Locale.ROOT))) {
+
+            throw new LanguageNotFoundException("No dictionary for language: " + language);
+        }
+
+        Charset charset = charset(headers.getMediaType());
+
+        return output -> {
+
+            WordTokenizer tokenizer = new WordTokenizer(new InputStreamReader(body, charset));
+            JsonGenerator generator = JSON_LINE.getFactory().createGenerator(output, JsonEncoding.UTF8);
+            generator.setRootValueSeparator(null);
+            WordTokenizer.Token token;
+
+            while ((token = tokenizer.next()) != null) {
+
+                SpellingCheckResponse response = SpellingResource.check(service, language, tenant, token.getWord());
+
+                if (!response.isCorrect()) {
+
+                    JSON_LINE.writeValue(generator, new TokenCheckResponse(token.getWord(), token.getOffset(), false,
+                            response.getSuggestions()));
+                    generator.writeRaw('\n');
+                    generator.flush();
+                }
+            }
+
+            generator.flush();
+        };
+    }
+
+    private static Charset charset(MediaType mediaType) {
+
+        String charset = (mediaType == null) ? null : mediaType.getParameters().get(MediaType.CHARSET_PARAMETER);
+
+        return (charset == null) ? StandardCharsets.UTF_8 : Charset.forName(charset);
+    }
+}
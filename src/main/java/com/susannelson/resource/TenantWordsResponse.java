@@ -0,0 +1,22 @@
+package com.susannelson.resource;
+
+import java.util.Set;
+
+public class TenantWordsResponse {
+
+    private final String tenant;
+    private final Set<String> words;
+
+    public TenantWordsResponse(String tenant, Set<String> words) {
+        this.tenant = tenant;
+        this.words = words;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public Set<String> getWords() {
+        return words;
+    }
+}
@@ -0,0 +1,37 @@
+package com.susannelson.resource;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Set;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TokenCheckResponse {
+
+    private final String word;
+    private final long offset;
+    private final boolean correct;
+    private final Set<String> suggestions;
+
+    public TokenCheckResponse(String word, long offset, boolean correct, Set<String> suggestions) {
+        this.word = word;
+        this.offset = offset;
+        this.correct = correct;
+        this.suggestions = suggestions;
+    }
+
+    public String getWord() {
+        return word;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public boolean isCorrect() {
+        return correct;
+    }
+
+    public Set<String> getSuggestions() {
+        return suggestions;
+    }
+}
@@ -0,0 +1,47 @@
+package com.susannelson.service;
+
+/**
+ * Time allowed for a stage of the suggestion pipeline. Generators check it as they go and stop early, returning what
+ * they have found so far, once it has run out.
+ */
+final class Budget {
+
+    static final Budget UNLIMITED = new Budget(0);
+
+    private final long deadline;
+    private volatile boolean cutShort;
+
+    private Budget(final long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * @param nanos - time allowed from now, or 0 for no limit.
+     */
+    static Budget ofNanos(final long nanos) {
+
+        return (nanos <= 0) ? UNLIMITED : new Budget(System.nanoTime() + nanos);
+    }
+
+    /**
+     * @return true if the time has run out, in which case the stage is recorded as cut short.
+     */
+    boolean expired() {
+
+        if (this == UNLIMITED || System.nanoTime() - deadline < 0) {
+
+            return false;
+        }
+
+        cutShort = true;
+        return true;
+    }
+
+    /**
+     * @return true if a generator stopped early because the time ran out.
+     */
+    boolean wasCutShort() {
+
+        return cutShort;
+    }
+}
@@ -0,0 +1,31 @@
+package com.susannelson.service;
+
+import java.util.List;
+
+/**
+ * Supplies the Dictionary words worth running the {@link FuzzyMatcher} against for an input.
+ * Implementations must return every word the matcher could accept; any extra words are simply rejected by the matcher.
+ */
+interface CandidateIndex {
+
+    /**
+     * @param cleanedInput - lowercase input with repeated characters already removed.
+     * @return List<String> - words that may fuzzy match the input, with fast random access so it can be split.
+     */
+    List<String> candidates(String cleanedInput);
+
+    /**
+     * @param countWords - whether to count the String instances of the words, which are the Dictionary's own only in
+     *                     HASH storage; PACKED and MAPPED dictionaries hold no Strings, so the index's are extra heap.
+     * @return estimated number of heap bytes held by the index.
+     */
+    long memoryBytes(boolean countWords);
+
+    /**
+     * @return estimated heap used by the String instance of the word, as HashWordStore estimates it.
+     */
+    static long wordBytes(final String word) {
+
+        return 24 + ((16 + 2L * word.length() + 7) & ~7L);
+    }
+}
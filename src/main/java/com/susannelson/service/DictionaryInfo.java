@@ -0,0 +1,62 @@
+package com.susannelson.service;
+
+import com.susannelson.data.Dictionary;
+
+/**
+ * Describes the dictionary version in use.
+ */
+public final class DictionaryInfo {
+
+    private final long version;
+    private final String source;
+    private final Dictionary.Storage storage;
+    private final int words;
+    private final long loadedAt;
+    private final long memoryBytes;
+
+    public DictionaryInfo(final long version, final String source, final Dictionary.Storage storage, final int words,
+                          final long loadedAt, final long memoryBytes) {
+        this.version = version;
+        this.source = source;
+        this.storage = storage;
+        this.words = words;
+        this.loadedAt = loadedAt;
+        this.memoryBytes = memoryBytes;
+    }
+
+    /**
+     * @return number of the version, counting up from 1 with each load.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the word list file or resource the version was loaded from.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    public Dictionary.Storage getStorage() {
+        return storage;
+    }
+
+    public int getWords() {
+        return words;
+    }
+
+    /**
+     * @return when the version was loaded, in milliseconds since the epoch.
+     */
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * @return estimated heap used by the version, the words together with the indexes made from them.
+     */
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+}
@@ -0,0 +1,113 @@
+package com.susannelson.service;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.function.BiFunction;
+
+/**
+ * The dictionaries of the languages other than the default, by lowercase language name.
+ * A language's DictionaryVersion is loaded on first use, once however many requests ask for it at the same time, and
+ * kept while the loaded languages fit the memory budget; beyond it the least recently used are unloaded, to be loaded
+ * again when next asked for. The budget applies to all the languages together, so any language that fits it stays
+ * loaded until others push it out; a language larger than the whole budget is unloaded as soon as it has been used.
+ */
+final class DictionaryRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DictionaryRegistry.class);
+
+    private final Map<String, String> sources;
+    private final LoadingCache<String, DictionaryVersion> loaded;
+
+    /**
+     * @param sources - word list of each language, by name.
+     * @param memoryBytes - heap the loaded languages may use between them.
+     * @param loader - builds the version of a language from its name and word list.
+     */
+    DictionaryRegistry(final Map<String, String> sources, final long memoryBytes,
+                       final BiFunction<String, String, DictionaryVersion> loader) {
+
+        Map<String, String> lowercase = new TreeMap<>();
+        sources.forEach((language, source) -> lowercase.put(language.toLowerCase(Locale.ROOT), source));
+        Map<String, String> byLanguage = ImmutableMap.copyOf(lowercase);
+        this.sources = byLanguage;
+
+        Weigher<String, DictionaryVersion> weigher = (language, version) ->
+                (int) Math.min(Integer.MAX_VALUE, version.memoryBytes());
+        RemovalListener<String, DictionaryVersion> unloaded = removal ->
+                LOGGER.info("Dictionary for language " + removal.getKey() + " unloaded (" + removal.getCause() + ").");
+
+        // a single segment, as each segment of the cache evicts against its share of the budget on its own
+        this.loaded = CacheBuilder.newBuilder()
+                .concurrencyLevel(1)
+                .maximumWeight(memoryBytes)
+                .weigher(weigher)
+                .removalListener(unloaded)
+                .build(new CacheLoader<String, DictionaryVersion>() {
+                    @Override
+                    public DictionaryVersion load(final String language) {
+
+                        long start = System.nanoTime();
+                        DictionaryVersion version = loader.apply(language, byLanguage.get(language));
+                        LOGGER.info("Dictionary for language " + language + " with " + version.dict.size()
+                                + " words loaded in " + (System.nanoTime() - start) / 1000000 + " ms.");
+                        return version;
+                    }
+                });
+    }
+
+    /**
+     * @return the names of the languages, in lowercase.
+     */
+    Set<String> languages() {
+
+        return sources.keySet();
+    }
+
+    /**
+     * @return the version of the language, loading it if it is not loaded, or empty if there is no such language.
+     * @throws RuntimeException if the language's word list could not be loaded.
+     */
+    Optional<DictionaryVersion> get(final String language) {
+
+        String key = language.toLowerCase(Locale.ROOT);
+
+        if (!sources.containsKey(key)) {
+
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(loaded.getUnchecked(key));
+
+        } catch (UncheckedExecutionException e) {
+
+            throw new IllegalStateException("Dictionary for language " + key + " could not be loaded: "
+                    + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * @return the versions of the languages that are loaded, by name.
+     */
+    Map<String, DictionaryVersion> loaded() {
+
+        return new TreeMap<>(loaded.asMap());
+    }
+
+    /**
+     * @return the estimated heap used by the loaded languages.
+     */
+    long memoryBytes() {
+
+        return loaded.asMap().values().stream().mapToLong(DictionaryVersion::memoryBytes).sum();
+    }
+}
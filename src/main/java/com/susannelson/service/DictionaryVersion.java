@@ -0,0 +1,69 @@
+package com.susannelson.service;
+
+import com.google.common.cache.Cache;
+import com.susannelson.data.Dictionary;
+import com.susannelson.data.WordFrequencies;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A Dictionary together with everything derived from it: the fuzzy candidate index, the trie, the edit distance index,
+ * the word frequencies, the suggestion cache and the suggestions being made.
+ * A version is completely built before it is published and, apart from those two, is never changed afterwards, so a
+ * request that reads the current version once sees a consistent whole even while a newer version is being swapped in.
+ */
+final class DictionaryVersion {
+
+    final long version;
+    final String source;
+    final long loadedAt;
+    final Dictionary dict;
+    final CandidateIndex candidateIndex;
+    final WordTrie trie;
+    // null unless the EDIT_DISTANCE strategy is used
+    final EditDistanceIndex editDistanceIndex;
+    final WordFrequencies frequencies;
+    final Cache<String, Set<String>> suggestionCache;
+    // suggestions being made, by lowercase input, which concurrent requests for the same input wait for
+    final ConcurrentMap<String, CompletableFuture<Set<String>>> inFlight = new ConcurrentHashMap<>();
+    private final long memoryBytes;
+
+    DictionaryVersion(final long version, final String source, final Dictionary dict,
+                      final CandidateIndex candidateIndex, final WordTrie trie,
+                      final EditDistanceIndex editDistanceIndex, final WordFrequencies frequencies,
+                      final Cache<String, Set<String>> suggestionCache) {
+        this.version = version;
+        this.source = source;
+        this.loadedAt = System.currentTimeMillis();
+        this.dict = dict;
+        this.candidateIndex = candidateIndex;
+        this.trie = trie;
+        this.editDistanceIndex = editDistanceIndex;
+        this.frequencies = frequencies;
+        this.suggestionCache = suggestionCache;
+
+        boolean countWords = dict.getStorage() != Dictionary.Storage.HASH;
+        this.memoryBytes = dict.memoryBytes() + trie.memoryBytes() + candidateIndex.memoryBytes(countWords)
+                + ((editDistanceIndex == null) ? 0 : editDistanceIndex.memoryBytes(countWords))
+                + frequencies.memoryBytes(countWords);
+    }
+
+    /**
+     * @return estimated heap used by the version, the sum of the words, the trie, the candidate index, the edit
+     * distance index and the word frequencies as each measures itself. The indexes are counted with the Strings of
+     * their words unless they are the dictionary's own, so PACKED and MAPPED storage are not credited with heap the
+     * indexes still use.
+     */
+    long memoryBytes() {
+
+        return memoryBytes;
+    }
+
+    DictionaryInfo info() {
+
+        return new DictionaryInfo(version, source, dict.getStorage(), dict.size(), loadedAt, memoryBytes());
+    }
+}
@@ -0,0 +1,229 @@
+package com.susannelson.service;
+
+import com.susannelson.data.Dictionary;
+
+import java.util.*;
+
+/**
+ * Finds the Dictionary words within a small edit distance of the input, counting insertions, deletions, substitutions
+ * and transpositions of adjacent characters (optimal string alignment distance).
+ *
+ * Symmetric delete index: two words within distance k share a string made by deleting at most k characters from each.
+ * So every word is indexed under each of its deletions, and a lookup only verifies the words indexed under the
+ * deletions of the input, rather than scanning the whole Dictionary.
+ * To bound the index, only a prefix of each word is used, and each deletion is held as a 32 bit hash in a sorted
+ * long[] of (hash << 32 | word id), with no String per entry. Hash collisions only add candidates, which the distance
+ * check then rejects.
+ */
+final class EditDistanceIndex {
+
+    private final String[] words;
+    private final long[] entries;
+    private final int maxDistance;
+    private final int prefixLength;
+
+    private EditDistanceIndex(final String[] words, final long[] entries, final int maxDistance,
+                              final int prefixLength) {
+        this.words = words;
+        this.entries = entries;
+        this.maxDistance = maxDistance;
+        this.prefixLength = prefixLength;
+    }
+
+    /**
+     * @param maxDistance - the largest edit distance a suggestion may be from the input, 1 or 2 in practice.
+     * @param prefixLength - how many leading characters of each word are indexed, more than maxDistance.
+     */
+    static EditDistanceIndex build(final Dictionary dict, final int maxDistance, final int prefixLength) {
+
+        if (maxDistance < 1 || prefixLength <= maxDistance) {
+
+            throw new IllegalArgumentException("The prefix length must be longer than the maximum distance, which must"
+                    + " be at least 1.");
+        }
+
+        String[] words = dict.getWordsView().toArray(new String[0]);
+        long[] entries = new long[words.length * 8];
+        int size = 0;
+        Set<String> deletions = new HashSet<>();
+
+        for (int id = 0; id < words.length; id++) {
+
+            deletions.clear();
+            addDeletions(prefix(words[id], prefixLength), maxDistance, deletions);
+
+            if (size + deletions.size() > entries.length) {
+                entries = Arrays.copyOf(entries, Math.max(entries.length * 2, size + deletions.size()));
+            }
+
+            for (String deletion : deletions) {
+                entries[size++] = entry(deletion.hashCode(), id);
+            }
+        }
+
+        entries = Arrays.copyOf(entries, size);
+        Arrays.parallelSort(entries);
+
+        return new EditDistanceIndex(words, entries, maxDistance, prefixLength);
+    }
+
+    Set<String> suggestions(final String input) {
+
+        return suggestions(input, Budget.UNLIMITED);
+    }
+
+    /**
+     * @param input - lowercase input
+     * @return the words within the maximum distance of the input, other than the input itself, or those found
+     *  before the budget ran out.
+     */
+    Set<String> suggestions(final String input, final Budget budget) {
+
+        Set<String> toReturn = new HashSet<>();
+        Set<String> deletions = new HashSet<>();
+
+        addDeletions(prefix(input, prefixLength), maxDistance, deletions);
+
+        for (String deletion : deletions) {
+
+            if (budget.expired()) {
+
+                break;
+            }
+
+            int hash = deletion.hashCode();
+
+            for (int i = firstEntry(hash); i < entries.length && (int) (entries[i] >> 32) == hash; i++) {
+
+                String word = words[(int) entries[i]];
+
+                if (Math.abs(word.length() - input.length()) <= maxDistance && !word.equals(input)
+                        && distance(input, word, maxDistance) <= maxDistance) {
+                    toReturn.add(word);
+                }
+            }
+        }
+
+        return toReturn;
+    }
+
+    /**
+     * @param countWords - whether to count the String instances of the words, see CandidateIndex.memoryBytes().
+     * @return number of bytes held by the index.
+     */
+    long memoryBytes(final boolean countWords) {
+
+        long bytes = 16L + 8L * entries.length + 16L + 4L * words.length;
+
+        if (countWords) {
+
+            for (String word : words) {
+                bytes += CandidateIndex.wordBytes(word);
+            }
+        }
+
+        return bytes;
+    }
+
+    /**
+     * @return the optimal string alignment distance between the strings, or max + 1 if it is more than max.
+     */
+    static int distance(final CharSequence a, final CharSequence b, final int max) {
+
+        int n = a.length();
+        int m = b.length();
+
+        if (Math.abs(n - m) > max) {
+
+            return max + 1;
+        }
+
+        // three rows of the distance matrix: two back, one back and current
+        int[] previous2 = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= n; i++) {
+
+            current[0] = i;
+            int rowMinimum = i;
+
+            for (int j = 1; j <= m; j++) {
+
+                int cost = (a.charAt(i - 1) == b.charAt(j - 1)) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+
+                current[j] = value;
+                rowMinimum = Math.min(rowMinimum, value);
+            }
+
+            if (rowMinimum > max) {
+
+                return max + 1;
+            }
+
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+
+        return Math.min(previous[m], max + 1);
+    }
+
+    /**
+     * Adds the string and every string made by deleting up to distance characters from it.
+     */
+    private static void addDeletions(final String s, final int distance, final Set<String> toReturn) {
+
+        if (!toReturn.add(s) || distance == 0) {
+
+            return;
+        }
+
+        for (int i = 0; i < s.length(); i++) {
+            addDeletions(s.substring(0, i) + s.substring(i + 1), distance - 1, toReturn);
+        }
+    }
+
+    private static String prefix(final String word, final int prefixLength) {
+
+        return (word.length() > prefixLength) ? word.substring(0, prefixLength) : word;
+    }
+
+    private static long entry(final int hash, final int id) {
+
+        return ((long) hash << 32) | id;
+    }
+
+    /**
+     * @return index of the first entry with the hash, or of the first entry after where it would be.
+     */
+    private int firstEntry(final int hash) {
+
+        long key = entry(hash, 0);
+        int low = 0;
+        int high = entries.length;
+
+        while (low < high) {
+
+            int middle = (low + high) >>> 1;
+
+            if (entries[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+}
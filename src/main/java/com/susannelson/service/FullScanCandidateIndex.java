@@ -0,0 +1,33 @@
+package com.susannelson.service;
+
+import com.susannelson.data.Dictionary;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Offers every word in the Dictionary as a candidate.
+ * Used as the reference for the pruning indexes, and to spread a full scan over several threads.
+ */
+final class FullScanCandidateIndex implements CandidateIndex {
+
+    private final List<String> words;
+
+    FullScanCandidateIndex(final Dictionary dict) {
+        // an array of references to the dictionary's words, so the scan can be split without decoding or copying them
+        this.words = Collections.unmodifiableList(Arrays.asList(dict.getWordsView().toArray(new String[0])));
+    }
+
+    @Override
+    public List<String> candidates(final String cleanedInput) {
+
+        return words;
+    }
+
+    @Override
+    public long memoryBytes(final boolean countWords) {
+
+        return 16L + 4L * words.size() + (countWords ? words.stream().mapToLong(CandidateIndex::wordBytes).sum() : 0);
+    }
+}
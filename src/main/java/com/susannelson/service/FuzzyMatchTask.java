@@ -0,0 +1,71 @@
+package com.susannelson.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs the {@link FuzzyMatcher} over a range of candidates, splitting the range in half until it is small enough
+ * to match on one thread. Returns the matching words, or those found before the budget ran out.
+ */
+final class FuzzyMatchTask extends RecursiveTask<List<String>> {
+
+    // the budget is checked once every this many + 1 candidates
+    static final int BUDGET_CHECK_MASK = 0xFF;
+
+    private final String cleanedInput;
+    private final List<String> candidates;
+    private final int start;
+    private final int end;
+    private final int leafSize;
+    private final Budget budget;
+
+    FuzzyMatchTask(final String cleanedInput, final List<String> candidates, final int leafSize,
+                   final Budget budget) {
+        this(cleanedInput, candidates, 0, candidates.size(), leafSize, budget);
+    }
+
+    private FuzzyMatchTask(final String cleanedInput, final List<String> candidates, final int start, final int end,
+                           final int leafSize, final Budget budget) {
+        this.cleanedInput = cleanedInput;
+        this.candidates = candidates;
+        this.start = start;
+        this.end = end;
+        this.leafSize = leafSize;
+        this.budget = budget;
+    }
+
+    @Override
+    protected List<String> compute() {
+
+        if (end - start <= leafSize) {
+
+            List<String> toReturn = new ArrayList<>();
+
+            for (int i = start; i < end; i++) {
+
+                if (((i - start) & BUDGET_CHECK_MASK) == 0 && budget.expired()) {
+
+                    break;
+                }
+
+                String word = candidates.get(i);
+
+                if (FuzzyMatcher.matches(cleanedInput, word)) {
+                    toReturn.add(word);
+                }
+            }
+
+            return toReturn;
+        }
+
+        int middle = (start + end) >>> 1;
+        FuzzyMatchTask left = new FuzzyMatchTask(cleanedInput, candidates, start, middle, leafSize, budget);
+        left.fork();
+        List<String> toReturn = new FuzzyMatchTask(cleanedInput, candidates, middle, end, leafSize,
+                budget).compute();
+        toReturn.addAll(left.join());
+
+        return toReturn;
+    }
+}
@@ -0,0 +1,98 @@
+package com.susannelson.service;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Matches an input against a single dictionary word, skipping up to two vowels the input is missing at each position.
+ * The whole word must be consumed for a match.
+ * If the word is consumed before the input, it is still a match when the last character of the input equals the
+ * last character of the word.
+ */
+final class FuzzyMatcher {
+
+    final static ImmutableSet<Character> VOWELS = ImmutableSet.of('a', 'e', 'i', 'o', 'u');
+
+    private FuzzyMatcher() {
+    }
+
+    /**
+     * @param cleanedInput - lowercase input with repeated characters already removed.
+     * @param word - lowercase word from the Dictionary.
+     * @return boolean - true if the word is a fuzzy match for the input.
+     */
+    static boolean matches(final String cleanedInput, final String word) {
+
+        if (word.length() < cleanedInput.length()) {
+
+            return false;
+        }
+
+        char inputChar;
+        char wordChar;
+        int wordIndex = 0;
+        boolean found = true;
+
+        for (int i = 0; i < cleanedInput.length(); i++) {
+
+            inputChar = cleanedInput.charAt(i);
+            wordChar = word.charAt(wordIndex);
+
+            if (inputChar != wordChar) {
+                //if the input is missing a vowel or two, it is still a match
+                if (skipMissingVowel(inputChar, wordChar, wordIndex, word.length())) {
+
+                    wordChar = word.charAt(++wordIndex);
+
+                    if (inputChar != wordChar) {
+
+                        if (skipMissingVowel(inputChar, wordChar, wordIndex, word.length())) {
+
+                            wordChar = word.charAt(++wordIndex);
+                        }
+                    }
+                }
+            }
+
+            if (inputChar != wordChar) {
+
+                found = false;
+                break;
+            }
+
+            wordIndex++;
+
+            if (wordIndex == word.length()) {
+
+                // if the whole input was not searched, check to see if the last character of the input is equal
+                // to the last character the word
+                //TODO need to check all characters in the input that were not compared yet
+                if ((i < (cleanedInput.length() - 1)) && (cleanedInput.charAt(cleanedInput.length() - 1) != wordChar)) {
+
+                    found = false;
+                }
+
+                break;
+            }
+        }
+
+        return found && wordIndex == word.length();
+    }
+
+    static boolean isVowel(final char c) {
+
+        return VOWELS.contains(c);
+    }
+
+    private static boolean skipMissingVowel(final char inputChar, final char wordChar, final int wordIndex, final int wordLength) {
+
+        if (!isVowel(inputChar) && isVowel(wordChar)) {
+
+            if ((wordIndex + 1) < wordLength) {
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
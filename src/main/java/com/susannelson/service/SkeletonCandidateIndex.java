@@ -0,0 +1,391 @@
+package com.susannelson.service;
+
+import com.susannelson.data.Dictionary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Groups the Dictionary words by consonant skeleton (the word with its vowels removed).
+ * The fuzzy matcher only ever skips vowels in the word, so a matching word has the same skeleton as the part of the
+ * input it consumed. Only the buckets for the skeletons of the input's prefixes are searched, and words in those
+ * buckets are further pruned by length, first letter and last letter before they are handed to the matcher.
+ * The skeletons are UTF-8 bytes packed end to end, found through an open addressing table of their numbers as in
+ * HashWordStore, and the buckets are runs of word ids in a single array, with the length, first and last character of
+ * each word alongside so pruning reads no words. Only the candidates that pass are looked up by id: from an array of
+ * the dictionary's own Strings in HASH storage, or decoded from the packed words of the snapshot in PACKED and MAPPED
+ * storage. Read from a memory mapped snapshot, the arrays stay in the mapped file, so the index takes almost no heap.
+ */
+final class SkeletonCandidateIndex implements CandidateIndex {
+
+    static final String SNAPSHOT_SECTION = "skeleton";
+
+    // skeleton number + 1 in the slot of its hash, with linear probing, or 0 for an empty slot
+    private final IntBuffer slots;
+    private final int mask;
+    // skeleton i is the bytes [keyOffsets.get(i), keyOffsets.get(i + 1)) of keys
+    private final IntBuffer keyOffsets;
+    private final ByteBuffer keys;
+    // the bucket of skeleton i is the word ids [bucketStarts.get(i), bucketStarts.get(i + 1)) of ids
+    private final IntBuffer bucketStarts;
+    private final IntBuffer ids;
+    // length, first and last character of the word with the id at the same position of ids
+    private final CharBuffer lengths;
+    private final CharBuffer firsts;
+    private final CharBuffer lasts;
+    private final IntFunction<String> words;
+    // estimated heap of the arrays, and separately of the words held
+    private final long arrayBytes;
+    private final long wordBytes;
+
+    /**
+     * @param words - the words by id
+     * @param held - the words if the index holds them as Strings, null if they are decoded when needed
+     */
+    private SkeletonCandidateIndex(final IntBuffer slots, final IntBuffer keyOffsets, final ByteBuffer keys,
+                                   final IntBuffer bucketStarts, final IntBuffer ids, final CharBuffer lengths,
+                                   final CharBuffer firsts, final CharBuffer lasts, final IntFunction<String> words,
+                                   final String[] held) {
+        this.slots = slots;
+        this.mask = slots.limit() - 1;
+        this.keyOffsets = keyOffsets;
+        this.keys = keys;
+        this.bucketStarts = bucketStarts;
+        this.ids = ids;
+        this.lengths = lengths;
+        this.firsts = firsts;
+        this.lasts = lasts;
+        this.words = words;
+        this.arrayBytes = 64 + SnapshotArrays.heapBytes(slots, 4) + SnapshotArrays.heapBytes(keyOffsets, 4)
+                + SnapshotArrays.heapBytes(keys, 1) + SnapshotArrays.heapBytes(bucketStarts, 4)
+                + SnapshotArrays.heapBytes(ids, 4) + SnapshotArrays.heapBytes(lengths, 2)
+                + SnapshotArrays.heapBytes(firsts, 2) + SnapshotArrays.heapBytes(lasts, 2)
+                + ((held == null) ? 0 : (16 + 4L * held.length + 7) & ~7L);
+        this.wordBytes = (held == null) ? 0 : Arrays.stream(held).mapToLong(CandidateIndex::wordBytes).sum();
+    }
+
+    /**
+     * Builds the index of the dictionary's words, holding references to its Strings.
+     */
+    static SkeletonCandidateIndex build(final Dictionary dict) {
+
+        String[] words = dict.getWordsView().toArray(new String[0]);
+        Map<String, List<Integer>> grouped = new LinkedHashMap<>();
+        char[] lengths = new char[words.length];
+        char[] firsts = new char[words.length];
+        char[] lasts = new char[words.length];
+
+        for (int i = 0; i < words.length; i++) {
+            grouped.computeIfAbsent(skeleton(words[i]), k -> new ArrayList<>()).add(i);
+        }
+
+        int[] slots = new int[tableSize(grouped.size())];
+        int[] keyOffsets = new int[grouped.size() + 1];
+        int[] bucketStarts = new int[grouped.size() + 1];
+        int[] ids = new int[words.length];
+        ByteArrayOutputStream keys = new ByteArrayOutputStream();
+        int bucket = 0;
+        int position = 0;
+
+        for (Map.Entry<String, List<Integer>> entry : grouped.entrySet()) {
+
+            int slot = hash(entry.getKey()) & (slots.length - 1);
+
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & (slots.length - 1);
+            }
+
+            slots[slot] = bucket + 1;
+            byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            keyOffsets[bucket] = keys.size();
+            bucketStarts[bucket++] = position;
+            keys.write(key, 0, key.length);
+
+            for (int id : entry.getValue()) {
+
+                String word = words[id];
+                ids[position] = id;
+                lengths[position] = (char) Math.min(Character.MAX_VALUE, word.length());
+                firsts[position] = word.charAt(0);
+                lasts[position++] = word.charAt(word.length() - 1);
+            }
+        }
+
+        keyOffsets[bucket] = keys.size();
+        bucketStarts[bucket] = position;
+
+        return new SkeletonCandidateIndex(IntBuffer.wrap(slots), IntBuffer.wrap(keyOffsets),
+                ByteBuffer.wrap(keys.toByteArray()), IntBuffer.wrap(bucketStarts), IntBuffer.wrap(ids),
+                CharBuffer.wrap(lengths), CharBuffer.wrap(firsts), CharBuffer.wrap(lasts), id -> words[id], words);
+    }
+
+    /**
+     * Writes the arrays, referring to words by their id in the snapshot: int skeleton count, int key byte count,
+     * int word count, int slot count, int[slot count] slots, int[skeleton count + 1] key offsets,
+     * int[skeleton count + 1] bucket starts, int[word count] ids, char[word count] lengths,
+     * char[word count] first characters, char[word count] last characters, byte[key byte count] UTF-8 skeletons.
+     *  @param snapshotIds - the id of each word in the snapshot, which need not be its id in this index
+     */
+    void write(final DataOutputStream out, final ToIntFunction<String> snapshotIds) throws IOException {
+
+        int count = ids.limit();
+
+        out.writeInt(keyOffsets.limit() - 1);
+        out.writeInt(keys.limit());
+        out.writeInt(count);
+        out.writeInt(slots.limit());
+
+        for (int i = 0; i < slots.limit(); i++) {
+            out.writeInt(slots.get(i));
+        }
+
+        for (int i = 0; i < keyOffsets.limit(); i++) {
+            out.writeInt(keyOffsets.get(i));
+        }
+
+        for (int i = 0; i < bucketStarts.limit(); i++) {
+            out.writeInt(bucketStarts.get(i));
+        }
+
+        for (int i = 0; i < count; i++) {
+            out.writeInt(snapshotIds.applyAsInt(words.apply(ids.get(i))));
+        }
+
+        for (CharBuffer characters : Arrays.asList(lengths, firsts, lasts)) {
+
+            for (int i = 0; i < count; i++) {
+                out.writeChar(characters.get(i));
+            }
+        }
+
+        for (int i = 0; i < keys.limit(); i++) {
+            out.writeByte(keys.get(i));
+        }
+    }
+
+    /**
+     * Reads an index written by write, advancing the buffer past it, that holds references to the words.
+     *  @param words - the words by id
+     */
+    static SkeletonCandidateIndex read(final ByteBuffer buffer, final String[] words) {
+
+        return read(buffer, id -> words[id], words);
+    }
+
+    /**
+     * Reads an index written by write, advancing the buffer past it, that looks the words up by id as they are
+     * needed rather than holding them.
+     *  @param words - looks up the word with the id, such as DictionarySnapshot.getWord
+     */
+    static SkeletonCandidateIndex read(final ByteBuffer buffer, final IntFunction<String> words) {
+
+        return read(buffer, words, null);
+    }
+
+    private static SkeletonCandidateIndex read(final ByteBuffer buffer, final IntFunction<String> words,
+                                               final String[] held) {
+
+        int skeletons = buffer.getInt();
+        int keyBytes = buffer.getInt();
+        int count = buffer.getInt();
+        IntBuffer slots = SnapshotArrays.ints(buffer, buffer.getInt());
+        IntBuffer keyOffsets = SnapshotArrays.ints(buffer, skeletons + 1);
+        IntBuffer bucketStarts = SnapshotArrays.ints(buffer, skeletons + 1);
+        IntBuffer ids = SnapshotArrays.ints(buffer, count);
+        CharBuffer lengths = SnapshotArrays.chars(buffer, count);
+        CharBuffer firsts = SnapshotArrays.chars(buffer, count);
+        CharBuffer lasts = SnapshotArrays.chars(buffer, count);
+        ByteBuffer keys = SnapshotArrays.bytes(buffer, keyBytes);
+
+        return new SkeletonCandidateIndex(slots, keyOffsets, keys, bucketStarts, ids, lengths, firsts, lasts, words,
+                held);
+    }
+
+    /**
+     * @param countWords - whether to count the Strings of the words the index holds, which it only does when they
+     *                     are the dictionary's own.
+     */
+    @Override
+    public long memoryBytes(final boolean countWords) {
+
+        return arrayBytes + (countWords ? wordBytes : 0);
+    }
+
+    @Override
+    public List<String> candidates(final String cleanedInput) {
+
+        if (cleanedInput.isEmpty()) {
+
+            return Collections.emptyList();
+        }
+
+        int length = cleanedInput.length();
+        char first = cleanedInput.charAt(0);
+        char last = cleanedInput.charAt(length - 1);
+        String fullSkeleton = skeleton(cleanedInput);
+        List<String> toReturn = new ArrayList<>();
+
+        for (Map.Entry<String, Integer> prefix : prefixSkeletons(cleanedInput).entrySet()) {
+
+            int bucket = find(prefix.getKey());
+
+            if (bucket < 0) {
+
+                continue;
+            }
+
+            // each input character consumes at most itself and two skipped vowels
+            int maxLength = 3 * prefix.getValue();
+            // a word consumed before the whole input was searched must end with the last character of the input
+            boolean partial = !prefix.getKey().equals(fullSkeleton);
+
+            for (int i = bucketStarts.get(bucket); i < bucketStarts.get(bucket + 1); i++) {
+
+                int wordLength = lengths.get(i);
+
+                if (wordLength < length || wordLength > maxLength) {
+
+                    continue;
+                }
+
+                if (!firstCharacterMatches(first, firsts.get(i))) {
+
+                    continue;
+                }
+
+                if (partial && lasts.get(i) != last) {
+
+                    continue;
+                }
+
+                toReturn.add(words.apply(ids.get(i)));
+            }
+        }
+
+        return toReturn;
+    }
+
+    /**
+     * @return the number of the skeleton, or -1 if there is none.
+     */
+    private int find(final String skeleton) {
+
+        int slot = hash(skeleton) & mask;
+        int number;
+
+        while ((number = slots.get(slot) - 1) >= 0) {
+
+            if (equals(skeleton, number)) {
+
+                return number;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return true if the skeleton is the one with the number, comparing ASCII characters straight against its bytes.
+     */
+    private boolean equals(final String skeleton, final int number) {
+
+        int start = keyOffsets.get(number);
+        int end = keyOffsets.get(number + 1);
+
+        for (int i = 0; i < skeleton.length(); i++) {
+
+            char c = skeleton.charAt(i);
+
+            if (c >= 0x80) {
+
+                byte[] key = skeleton.getBytes(StandardCharsets.UTF_8);
+                ByteBuffer other = keys.duplicate();
+                other.limit(end).position(start);
+
+                return ByteBuffer.wrap(key).equals(other);
+            }
+
+            if (start + i >= end || keys.get(start + i) != c) {
+
+                return false;
+            }
+        }
+
+        return end - start == skeleton.length();
+    }
+
+    private static int tableSize(final int skeletons) {
+
+        int size = 16;
+
+        while (size < 2 * skeletons) {
+            size <<= 1;
+        }
+
+        return size;
+    }
+
+    private static int hash(final String skeleton) {
+
+        int h = skeleton.hashCode();
+
+        // spread the high bits into the masked low bits
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return the distinct skeletons of every non-empty prefix of the input, each with the longest prefix length that
+     * produces it.
+     */
+    private static Map<String, Integer> prefixSkeletons(final String input) {
+
+        Map<String, Integer> toReturn = new LinkedHashMap<>();
+        StringBuilder builder = new StringBuilder(input.length());
+
+        for (int i = 0; i < input.length(); i++) {
+
+            char c = input.charAt(i);
+
+            if (!FuzzyMatcher.isVowel(c)) {
+
+                builder.append(c);
+            }
+
+            toReturn.put(builder.toString(), i + 1);
+        }
+
+        return toReturn;
+    }
+
+    private static boolean firstCharacterMatches(final char inputChar, final char wordChar) {
+
+        return inputChar == wordChar || (!FuzzyMatcher.isVowel(inputChar) && FuzzyMatcher.isVowel(wordChar));
+    }
+
+    static String skeleton(final String word) {
+
+        StringBuilder builder = new StringBuilder(word.length());
+
+        for (int i = 0; i < word.length(); i++) {
+
+            char c = word.charAt(i);
+
+            if (!FuzzyMatcher.isVowel(c)) {
+
+                builder.append(c);
+            }
+        }
+
+        return builder.toString();
+    }
+}
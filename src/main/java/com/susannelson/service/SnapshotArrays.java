@@ -0,0 +1,94 @@
+package com.susannelson.service;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Reads the arrays of an index from its snapshot section, advancing the buffer past each.
+ * The arrays of a direct buffer, such as a memory mapped snapshot, are read where they are, so take no heap. Those of a
+ * heap buffer are copied, so the index does not keep the rest of the snapshot reachable.
+ */
+final class SnapshotArrays {
+
+    private SnapshotArrays() {
+    }
+
+    static IntBuffer ints(final ByteBuffer buffer, final int count) {
+
+        IntBuffer view = buffer.asIntBuffer();
+        view.limit(count);
+        buffer.position(buffer.position() + 4 * count);
+
+        if (buffer.isDirect()) {
+
+            return view.slice();
+        }
+
+        int[] copy = new int[count];
+        view.get(copy);
+
+        return IntBuffer.wrap(copy);
+    }
+
+    static CharBuffer chars(final ByteBuffer buffer, final int count) {
+
+        CharBuffer view = buffer.asCharBuffer();
+        view.limit(count);
+        buffer.position(buffer.position() + 2 * count);
+
+        if (buffer.isDirect()) {
+
+            return view.slice();
+        }
+
+        char[] copy = new char[count];
+        view.get(copy);
+
+        return CharBuffer.wrap(copy);
+    }
+
+    static LongBuffer longs(final ByteBuffer buffer, final int count) {
+
+        LongBuffer view = buffer.asLongBuffer();
+        view.limit(count);
+        buffer.position(buffer.position() + 8 * count);
+
+        if (buffer.isDirect()) {
+
+            return view.slice();
+        }
+
+        long[] copy = new long[count];
+        view.get(copy);
+
+        return LongBuffer.wrap(copy);
+    }
+
+    static ByteBuffer bytes(final ByteBuffer buffer, final int count) {
+
+        ByteBuffer view = buffer.slice();
+        view.limit(count);
+        buffer.position(buffer.position() + count);
+
+        if (buffer.isDirect()) {
+
+            return view;
+        }
+
+        byte[] copy = new byte[count];
+        view.get(copy);
+
+        return ByteBuffer.wrap(copy);
+    }
+
+    /**
+     * @return estimated heap used by the array behind the buffer, with elements of the size, or 0 if it is direct.
+     */
+    static long heapBytes(final Buffer buffer, final int elementBytes) {
+
+        return buffer.isDirect() ? 0 : (16 + (long) elementBytes * buffer.limit() + 7) & ~7L;
+    }
+}
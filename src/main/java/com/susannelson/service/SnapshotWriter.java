@@ -0,0 +1,65 @@
+package com.susannelson.service;
+
+import com.susannelson.data.Dictionary;
+import com.susannelson.data.DictionarySnapshot;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the snapshot of a word list, with its trie and skeleton index, so the service can start without parsing the
+ * text or building the indexes. Run by the build at process-classes.
+ *
+ * Usage: SnapshotWriter resourcePath outputFile
+ *  e.g. SnapshotWriter /com/susannelson/data/wordsEn.txt target/classes/com/susannelson/data/wordsEn.dict
+ */
+public final class SnapshotWriter {
+
+    private SnapshotWriter() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+
+        if (args.length != 2) {
+
+            throw new IllegalArgumentException("Usage: SnapshotWriter resourcePath outputFile");
+        }
+
+        File output = new File(args[1]);
+        output.getParentFile().mkdirs();
+
+        try (OutputStream stream = new BufferedOutputStream(new FileOutputStream(output))) {
+            write(args[0], stream);
+        }
+    }
+
+    /**
+     * Writes the snapshot of the word list at the resource path.
+     */
+    static void write(final String filePath, final OutputStream output) throws IOException {
+
+        Dictionary dict = new Dictionary.DictionaryBuilder().snapshot(false).build(filePath);
+        List<String> order = DictionarySnapshot.order(dict);
+        Map<String, Integer> ids = new HashMap<>(order.size() * 2);
+
+        for (int i = 0; i < order.size(); i++) {
+            ids.put(order.get(i), i);
+        }
+
+        Map<String, byte[]> sections = new LinkedHashMap<>();
+
+        ByteArrayOutputStream trie = new ByteArrayOutputStream();
+        WordTrie.build(dict).write(new DataOutputStream(trie));
+        sections.put(WordTrie.SNAPSHOT_SECTION, trie.toByteArray());
+
+        ByteArrayOutputStream skeleton = new ByteArrayOutputStream();
+        SkeletonCandidateIndex.build(dict).write(new DataOutputStream(skeleton), ids::get);
+        sections.put(SkeletonCandidateIndex.SNAPSHOT_SECTION, skeleton.toByteArray());
+
+        DictionarySnapshot.write(output, dict, DictionarySnapshot.sourceLength(filePath),
+                DictionarySnapshot.sourceChecksum(filePath), sections);
+    }
+}
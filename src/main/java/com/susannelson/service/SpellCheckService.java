@@ -1,7 +1,9 @@
 package com.susannelson.service;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public interface SpellCheckService {
 
@@ -14,6 +16,27 @@ public interface SpellCheckService {
      */
     Optional<String> getWordInLowercase(String word);
 
+    /**
+     * Returns the word from the Dictionary of the language in lowercase.
+     *
+     * @param language - name of the language, see getLanguages()
+     * @param word - input string
+     * @return String - word from the language's Dictionary or empty string if not found
+     * @throws IllegalArgumentException if the input word is null or there is no such language.
+     */
+    Optional<String> getWordInLowercase(String language, String word);
+
+    /**
+     * Returns the word in lowercase from the Dictionary of the language or from the tenant's own words.
+     *
+     * @param language - name of the language, see getLanguages()
+     * @param tenant - name of the tenant, in any case, or null for none
+     * @param word - input string
+     * @return String - word from the language's Dictionary or the tenant's words, or empty string if not found
+     * @throws IllegalArgumentException if the input word is null or there is no such language.
+     */
+    Optional<String> getWordInLowercase(String language, String tenant, String word);
+
     /**
      * The case of the characters in the input word are correct if they are
      *      all lowercase, or
@@ -25,6 +48,78 @@ public interface SpellCheckService {
      * @throws IllegalArgumentException if the input word is null or empty.
      */
     boolean isCaseCorrect(String word);
+
+    /**
+     * Returns the case form of the input word: lower, UPPER, Title, or MIXED when the case is not correct.
+     *
+     * @param word - input string with at least one character.
+     * @return WordCase - the case form of the input word.
+     * @throws IllegalArgumentException if the input word is null or empty.
+     */
+    WordCase getWordCase(String word);
+
     Set<String> getSpellingSuggestions (String word);
 
+    /**
+     * Returns spelling suggestions from the Dictionary of the language.
+     *
+     * @param language - name of the language, see getLanguages()
+     * @param word - input string
+     * @return Set<String> - spelling suggestions or an empty set if none found.
+     * @throws IllegalArgumentException if there is no such language.
+     */
+    Set<String> getSpellingSuggestions(String language, String word);
+
+    /**
+     * Returns spelling suggestions from the Dictionary of the language and from the tenant's own words.
+     *
+     * @param language - name of the language, see getLanguages()
+     * @param tenant - name of the tenant, in any case, or null for none
+     * @param word - input string
+     * @return Set<String> - spelling suggestions or an empty set if none found.
+     * @throws IllegalArgumentException if there is no such language.
+     */
+    Set<String> getSpellingSuggestions(String language, String tenant, String word);
+
+    /**
+     * @param tenant - name of the tenant, in any case.
+     * @return the tenant's own words in lowercase, sorted, or an empty set if it has none.
+     */
+    Set<String> getTenantWords(String tenant);
+
+    /**
+     * Adds the words to the tenant's own words, which are layered over the Dictionary of every language.
+     * They are kept in memory only, and are found from the next request on.
+     *
+     * @return the tenant's words.
+     * @throws IllegalArgumentException if the tenant is null or empty.
+     */
+    Set<String> addTenantWords(String tenant, Collection<String> words);
+
+    /**
+     * Removes the words from the tenant's own words, ignoring case.
+     *
+     * @return the tenant's words.
+     * @throws IllegalArgumentException if the tenant is null or empty.
+     */
+    Set<String> removeTenantWords(String tenant, Collection<String> words);
+
+    /**
+     * @return the names of the languages that words can be checked in, in lowercase.
+     */
+    Set<String> getLanguages();
+
+    /**
+     * @return the dictionary version in use.
+     */
+    DictionaryInfo getDictionaryInfo();
+
+    /**
+     * Loads the word list again in the background and swaps the new version in once it is completely built.
+     * Requests are never blocked and keep using the previous version until then.
+     *
+     * @return CompletableFuture<DictionaryInfo> - the new version, or the reason it could not be loaded.
+     */
+    CompletableFuture<DictionaryInfo> reloadDictionary();
+
 }
@@ -1,36 +1,429 @@
 package com.susannelson.service;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.susannelson.config.SpellingProperties;
 import com.susannelson.data.Dictionary;
+import com.susannelson.data.DictionarySnapshot;
+import com.susannelson.data.OverlayDictionary;
+import com.susannelson.data.WordFilter;
+import com.susannelson.data.WordFrequencies;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Spell checking service.
+ * The dictionary and its indexes are loaded from the snapshot written at build time when it is current, otherwise
+ * built from the word list. With MAPPED storage the words themselves stay in the memory mapped snapshot; the indexes
+ * are always on the heap.
+ * The dictionary, its indexes and the suggestion cache make up a DictionaryVersion, which is rebuilt in the background
+ * and swapped in whole when the word list file changes or a reload is requested.
  * Given an input string, checks to see if it exists in a dictionary of correctly spelled words.
  * If not, it returns a list of suggested words
  *  - by removing more than 2 repeated characters and checking the dictionary again
  *  - by matching characters of the input with characters in each word of the dictionary, skipping missed vowels
- *  - by adding any character to the beginning and/or end of the input string
+ *    (only words sharing a consonant skeleton with the input are compared, see SkeletonCandidateIndex;
+ *    long candidate lists are split across the common ForkJoinPool)
+ *  - by adding any letter to the beginning and/or end of the input string (walking a trie of the dictionary words)
+ *  - optionally, by finding words within a small edit distance of the input (see EditDistanceIndex)
+ * The strategies used, their order and their time budgets are set by SpellingProperties.Suggestions, and they are run
+ * as the stages of a SuggestionPipeline.
+ * Suggestions are cached by lowercase input, bounded by size and age (see SpellingProperties.Cache). Concurrent
+ * requests for the same input that is not cached share the suggestions made for the first of them.
+ * Further languages, each with a DictionaryVersion of its own, are loaded on first use and unloaded when they exceed
+ * their memory budget, see DictionaryRegistry. They share the suggestion strategies and the words they have in common
+ * with the default language.
+ * Tenants may add words of their own, such as product names, which are layered over the dictionary of every language
+ * rather than copied into it, see OverlayDictionary. They are kept in memory only, and are seen by the next request.
+ * Metrics are recorded under spelling.*: the time of each strategy (see SuggestionPipeline), the number of fuzzy
+ * candidates scanned, the number of suggestions, cache hits and misses, requests that shared the suggestions made
+ * for another, the dictionary load time and size, and the lookups answered by the dictionary's WordFilter, if it has
+ * one.
+ * Suggestion requests slower than SpellingProperties.Metrics#getSlowSuggestionsMillis are logged with their input.
  */
 @Service
 public class SpellCheckServiceImpl implements SpellCheckService {
 
-    //private static final Logger LOGGER = LoggerFactory.getLogger(SpellCheckServiceImpl.class);
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpellCheckServiceImpl.class);
     private final static String FILE_PATH = "/com/susannelson/data/wordsEn.txt";
-    private final static char[] ALPHABET = "abcdefghijklmnopqrstuvwxyz".toCharArray();
-    private final static ImmutableSet<Character> VOWELS = ImmutableSet.of('a', 'e', 'i', 'o', 'u');
-    private final static Pattern lowerCasePattern = Pattern.compile("\\p{javaLowerCase}+");
-    private final static Pattern upperCasePattern = Pattern.compile("\\p{javaUpperCase}+");
-
-    final private Dictionary dict;
+    // marks a language's word list as a bundled resource rather than a file
+    private final static String CLASSPATH_PREFIX = "classpath:";
+    // time for a writer to finish with the watched file, and for its burst of change events to be collapsed into one
+    private final static long WATCH_SETTLE_MILLIS = 500;
+
+    final private SpellingProperties properties;
+    final private int parallelThreshold;
+    final private List<SpellingProperties.Suggestions.Strategy> strategies;
+    final private SuggestionPipeline pipeline;
+    // null when every suggestion is returned, alphabetically
+    final private SuggestionRanker ranker;
+    final private AtomicLong versions = new AtomicLong();
+    // the language of the current version, in lowercase
+    final private String language;
+    // the other languages, loaded on first use
+    final private DictionaryRegistry registry;
+    final private Set<String> languages;
+    // each tenant's own words, by lowercase tenant name, layered over whichever version a request uses
+    final private ConcurrentMap<String, Set<String>> tenantWords = new ConcurrentHashMap<>();
+    final private Timer loadTimer;
+    final private Histogram candidatesScanned;
+    final private Histogram suggestionCounts;
+    final private Meter cacheHits;
+    final private Meter cacheMisses;
+    final private Meter coalesced;
+    final private long slowSuggestionsNanos;
+    // builds new versions one at a time, off the request threads
+    final private ExecutorService reloader = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("dictionary-reload").setDaemon(true).build());
+    private volatile DictionaryVersion current;
+    private volatile WatchService watcher;
 
     SpellCheckServiceImpl() {
-        //TODO get the file from a URL to ensure a current list
-        dict = new Dictionary.DictionaryBuilder().build(FILE_PATH);
+        this(new SpellingProperties());
+    }
+
+    SpellCheckServiceImpl(final SpellingProperties properties) {
+        this(properties, new MetricRegistry());
+    }
+
+    @Autowired
+    SpellCheckServiceImpl(final SpellingProperties properties, final MetricRegistry metrics) {
+
+        this.properties = properties;
+        parallelThreshold = properties.getFuzzy().getParallelThreshold();
+        strategies = ImmutableList.copyOf(properties.getSuggestions().getStrategies());
+        pipeline = buildPipeline(properties.getSuggestions(), metrics);
+        ranker = (properties.getSuggestions().getTopK() > 0) ?
+                new SuggestionRanker(properties.getSuggestions().getTopK()) : null;
+        loadTimer = metrics.timer("spelling.dictionary.load");
+        candidatesScanned = metrics.histogram("spelling.fuzzy.candidates");
+        suggestionCounts = metrics.histogram("spelling.suggestions.count");
+        cacheHits = metrics.meter("spelling.suggestions.cache.hits");
+        cacheMisses = metrics.meter("spelling.suggestions.cache.misses");
+        coalesced = metrics.meter("spelling.suggestions.coalesced");
+        slowSuggestionsNanos = TimeUnit.MILLISECONDS.toNanos(properties.getMetrics().getSlowSuggestionsMillis());
+        language = properties.getDictionary().getLanguage().toLowerCase(Locale.ROOT);
+        registry = new DictionaryRegistry(properties.getDictionary().getLanguages(),
+                properties.getDictionary().getLanguagesMemoryMb() * 1024 * 1024, this::loadLanguage);
+        languages = ImmutableSortedSet.<String>naturalOrder().add(language).addAll(registry.languages()).build();
+        current = load(versions.incrementAndGet());
+
+        metrics.register("spelling.dictionary.version", (Gauge<Long>) () -> current.version);
+        metrics.register("spelling.dictionary.words", (Gauge<Integer>) () -> current.dict.size());
+        metrics.register("spelling.dictionary.memory-bytes", (Gauge<Long>) () -> current.memoryBytes());
+        metrics.register("spelling.suggestions.cache.size", (Gauge<Long>) () -> current.suggestionCache.size());
+        metrics.register("spelling.suggestions.in-flight", (Gauge<Integer>) () -> current.inFlight.size());
+        metrics.register("spelling.dictionary.filter.rejected", (Gauge<Long>) () ->
+                current.dict.getFilter().map(WordFilter::getRejected).orElse(0L));
+        metrics.register("spelling.dictionary.filter.passed", (Gauge<Long>) () ->
+                current.dict.getFilter().map(WordFilter::getPassed).orElse(0L));
+        metrics.register("spelling.dictionary.filter.false-positives", (Gauge<Long>) () ->
+                current.dict.getFilter().map(WordFilter::getFalsePositives).orElse(0L));
+        metrics.register("spelling.dictionary.languages.loaded", (Gauge<Integer>) () -> registry.loaded().size());
+        metrics.register("spelling.dictionary.languages.memory-bytes", (Gauge<Long>) registry::memoryBytes);
+
+        String file = properties.getDictionary().getFile();
+
+        if (!Strings.isNullOrEmpty(file) && properties.getDictionary().isWatch()) {
+
+            watch(Paths.get(file));
+        }
+    }
+
+    private SuggestionPipeline buildPipeline(final SpellingProperties.Suggestions suggestions,
+                                             final MetricRegistry metrics) {
+
+        List<SuggestionPipeline.Stage> stages = new ArrayList<>();
+        StringBuilder description = new StringBuilder();
+
+        for (SpellingProperties.Suggestions.Strategy strategy : strategies) {
+
+            SuggestionGenerator generator;
+
+            switch (strategy) {
+                case FUZZY:
+                    generator = this::fuzzyMatch;
+                    break;
+                case CHAR_APPENDED:
+                    generator = this::charAppended;
+                    break;
+                default:
+                    generator = this::editDistance;
+            }
+
+            long budgetMillis = suggestions.getBudgetMillis(strategy);
+            stages.add(new SuggestionPipeline.Stage(strategy.name(), generator,
+                    TimeUnit.MILLISECONDS.toNanos(budgetMillis)));
+            description.append(' ').append(strategy).append(budgetMillis > 0 ? " (" + budgetMillis + " ms)" : "");
+        }
+
+        LOGGER.info("Suggestion strategies:" + description + (suggestions.getEarlyExitCount() > 0 ?
+                ", stopping after " + suggestions.getEarlyExitCount() + " suggestions." : "."));
+
+        return new SuggestionPipeline(stages, suggestions.getEarlyExitCount(), metrics);
+    }
+
+    /**
+     * Builds a version from the word list file, if one is configured, or else from the bundled word list.
+     */
+    private DictionaryVersion load(final long version) {
+
+        try (Timer.Context ignored = loadTimer.time()) {
+
+            return build(version);
+        }
+    }
+
+    private DictionaryVersion build(final long version) {
+
+        Dictionary.Storage storage = properties.getDictionary().getStorage();
+        double filterFalsePositiveRate = properties.getDictionary().getFilterFalsePositiveRate();
+        // words that are not from a snapshot to map are held on the heap as compactly as possible
+        Dictionary.Storage heapStorage = (storage == Dictionary.Storage.MAPPED) ? Dictionary.Storage.PACKED : storage;
+        String file = properties.getDictionary().getFile();
+
+        if (!Strings.isNullOrEmpty(file)) {
+
+            Dictionary dict = new Dictionary.DictionaryBuilder().storage(heapStorage).filter(filterFalsePositiveRate)
+                    .build(Paths.get(file));
+
+            return newVersion(version, file, dict, Optional.empty());
+        }
+
+        // the snapshot written at build time holds the words and the prebuilt indexes, see SnapshotWriter
+        boolean verifyChecksum = properties.getDictionary().isVerifySnapshotChecksum();
+        Optional<DictionarySnapshot> snapshot = (storage == Dictionary.Storage.MAPPED) ?
+                DictionarySnapshot.map(FILE_PATH, Paths.get(properties.getDictionary().getMappedFile()),
+                        verifyChecksum) :
+                DictionarySnapshot.load(FILE_PATH, verifyChecksum);
+        Dictionary dict = snapshot.isPresent() ?
+                snapshot.get().toDictionary(storage).withFilter(filterFalsePositiveRate) :
+                new Dictionary.DictionaryBuilder().storage(heapStorage).filter(filterFalsePositiveRate).snapshot(false)
+                        .build(FILE_PATH);
+
+        return newVersion(version, FILE_PATH, dict, snapshot);
+    }
+
+    /**
+     * Builds the version of a language other than the default from its word list file or bundled resource.
+     * The words it has in common with the default language share their Strings with it.
+     */
+    private DictionaryVersion loadLanguage(final String language, final String source) {
+
+        Dictionary.Storage storage = properties.getDictionary().getStorage();
+        Dictionary.Storage heapStorage = (storage == Dictionary.Storage.MAPPED) ? Dictionary.Storage.PACKED : storage;
+        Dictionary.DictionaryBuilder builder = new Dictionary.DictionaryBuilder().storage(heapStorage)
+                .filter(properties.getDictionary().getFilterFalsePositiveRate()).shareWordsWith(current.dict);
+        Dictionary dict = source.startsWith(CLASSPATH_PREFIX) ?
+                builder.build(source.substring(CLASSPATH_PREFIX.length())) : builder.build(Paths.get(source));
+
+        return newVersion(1, source, dict, Optional.empty());
+    }
+
+    private DictionaryVersion newVersion(final long version, final String source, final Dictionary dict,
+                                         final Optional<DictionarySnapshot> snapshot) {
+
+        CandidateIndex candidateIndex = (properties.getFuzzy().getIndex() == SpellingProperties.Fuzzy.Index.FULL_SCAN) ?
+                new FullScanCandidateIndex(dict) :
+                snapshot.flatMap(s -> s.getSection(SkeletonCandidateIndex.SNAPSHOT_SECTION))
+                        .map(section -> readCandidateIndex(section, snapshot.get(), dict))
+                        .orElseGet(() -> SkeletonCandidateIndex.build(dict));
+        WordTrie trie = snapshot.flatMap(s -> s.getSection(WordTrie.SNAPSHOT_SECTION))
+                .map(WordTrie::read)
+                .orElseGet(() -> WordTrie.build(dict));
+        EditDistanceIndex editDistanceIndex = null;
+
+        if (strategies.contains(SpellingProperties.Suggestions.Strategy.EDIT_DISTANCE)) {
+
+            long start = System.nanoTime();
+            editDistanceIndex = EditDistanceIndex.build(dict, properties.getSuggestions().getMaxEditDistance(),
+                    properties.getSuggestions().getEditPrefixLength());
+            LOGGER.info("Edit distance index built in " + (System.nanoTime() - start) / 1000000 + " ms using "
+                    + editDistanceIndex.memoryBytes(dict.getStorage() != Dictionary.Storage.HASH) / 1024 + " KB.");
+        }
+
+        String frequencyFile = properties.getSuggestions().getFrequencyFile();
+        WordFrequencies frequencies = Strings.isNullOrEmpty(frequencyFile) ? WordFrequencies.EMPTY :
+                WordFrequencies.load(Paths.get(frequencyFile), dict);
+
+        // suggestions made from an earlier version may be out of date, so each version starts its own cache
+        Cache<String, Set<String>> suggestionCache = CacheBuilder.newBuilder()
+                .maximumSize(properties.getCache().getMaximumSize())
+                .expireAfterWrite(properties.getCache().getExpireAfterWriteSeconds(), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+
+        return new DictionaryVersion(version, source, dict, candidateIndex, trie, editDistanceIndex, frequencies,
+                suggestionCache);
+    }
+
+    /**
+     * Reads the snapshot's skeleton index. In HASH storage it refers to the dictionary's own Strings; otherwise the
+     * dictionary holds the snapshot's packed words, and the index decodes its candidates from them as they are needed.
+     */
+    private static CandidateIndex readCandidateIndex(final ByteBuffer section, final DictionarySnapshot snapshot,
+                                                     final Dictionary dict) {
+
+        return (dict.getStorage() == Dictionary.Storage.HASH) ?
+                SkeletonCandidateIndex.read(section, snapshot.getWords()) :
+                SkeletonCandidateIndex.read(section, snapshot::getWord);
+    }
+
+    /**
+     * @return the dictionary version in use.
+     */
+    public DictionaryInfo getDictionaryInfo() {
+
+        return current.info();
+    }
+
+    /**
+     * Loads the word list again in the background and swaps the new version in once it is completely built.
+     * Requests keep using the previous version until then, and any already running finish with it.
+     * A word list with no words is rejected and the previous version kept.
+     * @return CompletableFuture<DictionaryInfo> - the new version, or the reason it could not be loaded.
+     */
+    public CompletableFuture<DictionaryInfo> reloadDictionary() {
+
+        return CompletableFuture.supplyAsync(() -> {
+
+            long start = System.nanoTime();
+            DictionaryVersion next = load(versions.incrementAndGet());
+
+            if (next.dict.size() == 0) {
+
+                throw new IllegalStateException("The word list " + next.source + " has no words, keeping version "
+                        + current.version + ".");
+            }
+
+            current = next;
+            LOGGER.info("Dictionary version " + next.version + " with " + next.dict.size() + " words swapped in after "
+                    + (System.nanoTime() - start) / 1000000 + " ms.");
+
+            return next.info();
+        }, reloader);
+    }
+
+    /**
+     * Reloads the dictionary whenever the file is written or replaced.
+     */
+    private void watch(final Path file) {
+
+        Path directory = file.toAbsolutePath().getParent();
+
+        try {
+            watcher = directory.getFileSystem().newWatchService();
+            directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+
+            LOGGER.warn("Not able to watch " + file + " for changes: " + e.getMessage());
+            return;
+        }
+
+        Thread thread = new Thread(() -> {
+
+            try {
+                while (true) {
+
+                    if (changed(watcher.take(), file)) {
+
+                        Thread.sleep(WATCH_SETTLE_MILLIS);
+                        WatchKey key;
+
+                        while ((key = watcher.poll()) != null) {
+                            changed(key, file);
+                        }
+
+                        LOGGER.info(file + " changed, reloading the dictionary.");
+                        reloadDictionary().exceptionally(e -> {
+                            LOGGER.error("Dictionary reload failed: " + e.getMessage());
+                            return null;
+                        });
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+
+                LOGGER.info("Stopped watching " + file + ".");
+            }
+        }, "dictionary-watch");
+
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return true if any of the key's events is for the file. Consumes the events and resets the key.
+     */
+    private static boolean changed(final WatchKey key, final Path file) {
+
+        boolean toReturn = false;
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+
+            if (file.getFileName().equals(event.context())) {
+                toReturn = true;
+            }
+        }
+
+        key.reset();
+        return toReturn;
+    }
+
+    /**
+     * Stops watching the word list file and stops any reload in progress.
+     */
+    @PreDestroy
+    public void close() throws IOException {
+
+        if (watcher != null) {
+            watcher.close();
+        }
+
+        reloader.shutdownNow();
+    }
+
+    /**
+     * @return the names of the languages, the default among them, in lowercase.
+     */
+    public Set<String> getLanguages() {
+
+        return languages;
+    }
+
+    /**
+     * @return the version of the language, loading it on first use. The default language is the current version.
+     * @throws IllegalArgumentException if there is no such language.
+     */
+    private DictionaryVersion version(final String language) {
+
+        if (this.language.equalsIgnoreCase(language)) {
+
+            return current;
+        }
+
+        return registry.get(language)
+                .orElseThrow(() -> new IllegalArgumentException("No dictionary for language: " + language));
     }
 
     /**
@@ -42,12 +435,115 @@ public class SpellCheckServiceImpl implements SpellCheckService {
      */
     public Optional<String> getWordInLowercase(final String word) {
 
+        return getWordInLowercase(language, word);
+    }
+
+    /**
+     * Returns the word from the Dictionary of the language in lowercase.
+     *
+     * @param language - name of the language, see getLanguages()
+     * @param word - input string
+     * @return String - word from the language's Dictionary or empty string if not found
+     * @throws IllegalArgumentException if the input word is null or there is no such language.
+     */
+    public Optional<String> getWordInLowercase(final String language, final String word) {
+
+        return getWordInLowercase(language, null, word);
+    }
+
+    /**
+     * Returns the word in lowercase from the Dictionary of the language or from the tenant's own words.
+     *
+     * @param language - name of the language, see getLanguages()
+     * @param tenant - name of the tenant, in any case, or null for none
+     * @param word - input string
+     * @return String - word from the language's Dictionary or the tenant's words, or empty string if not found
+     * @throws IllegalArgumentException if the input word is null or there is no such language.
+     */
+    public Optional<String> getWordInLowercase(final String language, final String tenant, final String word) {
+
         if (word == null){
 
             throw new IllegalArgumentException("Input must not be null.");
         }
 
-        return dict.get(word);
+        return overlay(version(language), tenant).get(word);
+    }
+
+    /**
+     * @return the dictionary of the version with the tenant's words layered over it.
+     */
+    private OverlayDictionary overlay(final DictionaryVersion version, final String tenant) {
+
+        Set<String> words = (tenant == null) ? null : tenantWords.get(tenant.toLowerCase(Locale.ROOT));
+
+        return new OverlayDictionary(version.dict, (words == null) ? Collections.emptySet() : words);
+    }
+
+    /**
+     * @param tenant - name of the tenant, in any case.
+     * @return the tenant's own words in lowercase, sorted, or an empty set if it has none.
+     */
+    public Set<String> getTenantWords(final String tenant) {
+
+        Set<String> words = tenantWords.get(tenantKey(tenant));
+
+        return (words == null) ? Collections.emptySet() : ImmutableSortedSet.copyOf(words);
+    }
+
+    /**
+     * Adds the words to the tenant's own words, in lowercase. Null and empty words are skipped.
+     * The words are found, and suggested, from the next request on.
+     *
+     * @param tenant - name of the tenant, in any case.
+     * @param words - words to add.
+     * @return the tenant's words, as getTenantWords(tenant).
+     * @throws IllegalArgumentException if the tenant is null or empty.
+     */
+    public Set<String> addTenantWords(final String tenant, final Collection<String> words) {
+
+        Set<String> toAddTo = tenantWords.computeIfAbsent(tenantKey(tenant), key -> OverlayDictionary.newWordSet());
+
+        for (String word : words) {
+            OverlayDictionary.add(toAddTo, word);
+        }
+
+        return getTenantWords(tenant);
+    }
+
+    /**
+     * Removes the words from the tenant's own words, ignoring case. Words from the Dictionary are not affected.
+     *
+     * @param tenant - name of the tenant, in any case.
+     * @param words - words to remove.
+     * @return the tenant's words, as getTenantWords(tenant).
+     * @throws IllegalArgumentException if the tenant is null or empty.
+     */
+    public Set<String> removeTenantWords(final String tenant, final Collection<String> words) {
+
+        Set<String> toRemoveFrom = tenantWords.get(tenantKey(tenant));
+
+        if (toRemoveFrom != null) {
+
+            for (String word : words) {
+
+                if (word != null) {
+                    toRemoveFrom.remove(word.toLowerCase());
+                }
+            }
+        }
+
+        return getTenantWords(tenant);
+    }
+
+    private static String tenantKey(final String tenant) {
+
+        if (Strings.isNullOrEmpty(tenant)) {
+
+            throw new IllegalArgumentException("Tenant must be at least one character.");
+        }
+
+        return tenant.toLowerCase(Locale.ROOT);
     }
 
     /**
@@ -62,160 +558,396 @@ public class SpellCheckServiceImpl implements SpellCheckService {
      */
     public boolean isCaseCorrect(final String word) {
 
+        return getWordCase(word) != WordCase.MIXED;
+    }
+
+    /**
+     * Returns the case form of the input word, classified in a single pass without allocating.
+     *
+     * @param word - input string with at least one character.
+     * @return WordCase - the case form, MIXED if the case of the input word is not correct.
+     * @throws IllegalArgumentException if the input word is null or empty.
+     */
+    public WordCase getWordCase(final String word) {
+
         if (Strings.isNullOrEmpty(word) ){
 
             throw new IllegalArgumentException("Input must be at least one character.");
         }
 
-        return (word.length() == 1) ||
-                lowerCasePattern.matcher(word.substring(1)).matches()||
-                upperCasePattern.matcher(word).matches();
+        return WordCase.of(word);
     }
 
     /**
-     * Returns a sorted set of spelling suggestions from the Dictionary.
-     * Suggestions are built by removing repeating characters from the input and performing two searches:
+     * Returns a sorted set of spelling suggestions from the Dictionary, or with top-k set, the best k suggestions in
+     * rank order (see SuggestionRanker), chosen from all the suggestions found.
+     * Suggestions are built by removing repeating characters from the input and performing the configured searches:
      *  - a fuzzy match (skipping missing vowels)
-     *  - adding a character to the beginning and/or end of the input.
+     *  - adding a character to the beginning and/or end of the input
+     *  - finding words within a small edit distance of the input.
+     * Each search stops at its time budget, and no further searches are run once enough suggestions have been found.
+     * Suggestions for recently seen input are returned from the cache.
      * TODO this could be much nore robust
      * @param word - input string
      * @return Set<String> - spelling suggestions or an empty set if none found.
      */
     public Set<String> getSpellingSuggestions (final String word) {
 
-        if (!dict.contains(word)) {
+        return getSpellingSuggestions(language, word);
+    }
 
-            return makeSuggestions(word);
-        }
+    /**
+     * Returns spelling suggestions from the Dictionary of the language, as getSpellingSuggestions(word).
+     * Each language has its own suggestion cache.
+     *
+     * @param language - name of the language, see getLanguages()
+     * @param word - input string
+     * @return Set<String> - spelling suggestions or an empty set if none found.
+     * @throws IllegalArgumentException if there is no such language.
+     */
+    public Set<String> getSpellingSuggestions(final String language, final String word) {
 
-        return Collections.emptySet();
+        return getSpellingSuggestions(language, null, word);
     }
 
-    Set<String> makeSuggestions(final String input) {
+    /**
+     * Returns spelling suggestions from the Dictionary of the language and from the tenant's own words.
+     * Suggestions from the Dictionary are cached for every tenant; the tenant's words are searched on each request,
+     * so words added since are suggested at once, and the two are ranked together.
+     *
+     * @param language - name of the language, see getLanguages()
+     * @param tenant - name of the tenant, in any case, or null for none
+     * @param word - input string
+     * @return Set<String> - spelling suggestions or an empty set if none found.
+     * @throws IllegalArgumentException if there is no such language.
+     */
+    public Set<String> getSpellingSuggestions(final String language, final String tenant, final String word) {
 
-        //sorted set
-        Set<String> toReturn = new TreeSet<>();
+        // the whole request uses the version current when it started
+        DictionaryVersion version = version(language);
+        OverlayDictionary dict = overlay(version, tenant);
 
-        toReturn.addAll(fuzzyMatch(input));
-        toReturn.addAll(charAppended(input));
+        if (dict.contains(word)) {
 
-        return toReturn;
+            return Collections.emptySet();
+        }
+
+        String key = word.toLowerCase();
+        Set<String> suggestions = dictionarySuggestions(version, key);
+
+        if (dict.getOverlayWords().isEmpty()) {
+
+            return suggestions;
+        }
+
+        Set<String> fromOverlay = overlaySuggestions(dict.getOverlayWords(), key);
+
+        if (fromOverlay.isEmpty()) {
+
+            return suggestions;
+        }
+
+        fromOverlay.addAll(suggestions);
+
+        return (ranker == null) ? ImmutableSortedSet.copyOf(fromOverlay) :
+                ranker.rank(key, fromOverlay, version.frequencies);
     }
 
-    Set<String> fuzzyMatch(final String input) {
+    /**
+     * Returns the suggestions from the version's Dictionary, from its cache when the input was seen recently.
+     * Otherwise only the first of any concurrent requests for the same input makes them, and the others wait for its
+     * result, whether or not it is cached.
+     */
+    private Set<String> dictionarySuggestions(final DictionaryVersion version, final String key) {
 
-        Set<String> toReturn = new HashSet<>();
+        Set<String> suggestions = version.suggestionCache.getIfPresent(key);
 
-        String cleanedInput = removeRepeatedChars(input.toLowerCase(), 2);
+        if (suggestions != null) {
 
-        if (dict.contains(cleanedInput)) {
-            return ImmutableSet.of(cleanedInput);
+            cacheHits.mark();
+            return suggestions;
         }
 
-        return buildFuzzySuggestionList(toReturn, cleanedInput);
+        CompletableFuture<Set<String>> flight = new CompletableFuture<>();
+        CompletableFuture<Set<String>> running = version.inFlight.putIfAbsent(key, flight);
+
+        if (running != null) {
+
+            coalesced.mark();
+            return join(running);
+        }
+
+        try {
+            cacheMisses.mark();
+            long start = System.nanoTime();
+            SuggestionPipeline.Result result = pipeline.run(version, key);
+            suggestions = (ranker == null) ? ImmutableSortedSet.copyOf(result.suggestions) :
+                    ranker.rank(key, result.suggestions, version.frequencies);
+            suggestionCounts.update(suggestions.size());
+            logIfSlow(key, System.nanoTime() - start, result);
+
+            // suggestions cut short by a time budget are returned but not kept, a later request may find them all
+            if (result.complete) {
+                version.suggestionCache.put(key, suggestions);
+            }
+
+            flight.complete(suggestions);
+            return suggestions;
+
+        } catch (RuntimeException | Error e) {
+
+            flight.completeExceptionally(e);
+            throw e;
+
+        } finally {
+            // after the result is cached, so a request arriving in between finds one or the other
+            version.inFlight.remove(key, flight);
+        }
     }
 
-    private Set<String> buildFuzzySuggestionList(Set<String> toReturn, String cleanedInput) {
+    /**
+     * Waits for suggestions being made by another request, throwing what they failed with if they failed.
+     */
+    private static Set<String> join(final CompletableFuture<Set<String>> running) {
 
-        Set<String> words = dict.getWords();
-        char inputChar;
-        char wordChar;
-        int wordIndex = 0;
-        boolean found = true;
+        try {
+            return running.join();
 
-        for (String word : words) {
+        } catch (CompletionException e) {
 
-            if (word.length() < cleanedInput.length()) {
+            if (e.getCause() instanceof RuntimeException) {
 
-                continue;
+                throw (RuntimeException) e.getCause();
             }
 
-            for (int i = 0; i < cleanedInput.length(); i++) {
+            throw e;
+        }
+    }
 
-                inputChar = cleanedInput.charAt(i);
-                wordChar = word.charAt(wordIndex);
+    /**
+     * Finds the overlay words that any of the configured strategies would suggest for the input.
+     * There are few of them, so rather than being indexed as the Dictionary is, each is compared with the input.
+     */
+    private Set<String> overlaySuggestions(final Set<String> words, final String input) {
 
-                if (inputChar != wordChar) {
-                    //if the input is missing a vowel or two, it is still a match
-                    if (skipMissingVowel(inputChar, wordChar, wordIndex, word.length())) {
+        Set<String> toReturn = new HashSet<>();
+        String fuzzyInput = removeRepeatedChars(input, 2);
+        String appendInput = removeRepeatedChars(input, 1);
+        int maxEditDistance = properties.getSuggestions().getMaxEditDistance();
 
-                        wordChar = word.charAt(++wordIndex);
+        for (String word : words) {
 
-                        if (inputChar != wordChar) {
+            for (SpellingProperties.Suggestions.Strategy strategy : strategies) {
 
-                            if (skipMissingVowel(inputChar, wordChar, wordIndex, word.length())) {
+                boolean suggested;
 
-                                wordChar = word.charAt(++wordIndex);
-                            }
-                        }
-                    }
+                switch (strategy) {
+                    case FUZZY:
+                        suggested = FuzzyMatcher.matches(fuzzyInput, word);
+                        break;
+                    case CHAR_APPENDED:
+                        suggested = isCharAppended(appendInput, word);
+                        break;
+                    default:
+                        suggested = EditDistanceIndex.distance(input, word, maxEditDistance) <= maxEditDistance;
                 }
 
-                if (inputChar != wordChar) {
+                if (suggested) {
 
-                    found = false;
+                    toReturn.add(word);
                     break;
                 }
+            }
+        }
+
+        return toReturn;
+    }
 
-                wordIndex++;
+    /**
+     * @return true if the word is the input with a letter added to the front, the end, or both ends.
+     */
+    private static boolean isCharAppended(final String input, final String word) {
 
-                if (wordIndex == word.length()) {
+        int added = word.length() - input.length();
 
-                    // if the whole input was not searched, check to see if the last character of the input is equal
-                    // to the last character the word
-                    //TODO need to check all characters in the input that were not compared yet
-                    if ((i < (cleanedInput.length() - 1)) && (cleanedInput.charAt(cleanedInput.length() - 1) != wordChar)) {
+        if (added == 1) {
 
-                        found = false;
-                    }
+            return (word.startsWith(input) && isLetter(word.charAt(input.length())))
+                    || (word.endsWith(input) && isLetter(word.charAt(0)));
+        }
 
-                    break;
-                }
+        return added == 2 && word.startsWith(input, 1) && isLetter(word.charAt(0))
+                && isLetter(word.charAt(word.length() - 1));
+    }
+
+    private void logIfSlow(final String input, final long elapsedNanos, final SuggestionPipeline.Result result) {
+
+        if (slowSuggestionsNanos == 0 || elapsedNanos < slowSuggestionsNanos) {
+
+            return;
+        }
+
+        StringBuilder stages = new StringBuilder();
+
+        for (Map.Entry<String, Long> stage : result.stageNanos.entrySet()) {
+            stages.append(' ').append(stage.getKey()).append(' ').append(stage.getValue() / 1000000).append(" ms");
+        }
+
+        LOGGER.warn("Slow suggestions for \"" + input + "\": " + elapsedNanos / 1000000 + " ms," + stages + ", "
+                + result.suggestions.size() + " suggestions" + (result.complete ? "." : ", cut short."));
+    }
+
+    /**
+     * @return hit, miss and eviction counts of the suggestion cache of the current dictionary version.
+     */
+    public CacheStats getSuggestionCacheStats() {
+
+        return current.suggestionCache.stats();
+    }
+
+    Set<String> makeSuggestions(final String input) {
+
+        return pipeline.run(current, input).suggestions;
+    }
+
+    Set<String> fuzzyMatch(final String input) {
+
+        return fuzzyMatch(current, input, Budget.UNLIMITED);
+    }
+
+    private Set<String> fuzzyMatch(final DictionaryVersion version, final String input, final Budget budget) {
+
+        Set<String> toReturn = new HashSet<>();
+
+        String cleanedInput = removeRepeatedChars(input.toLowerCase(), 2);
+
+        if (version.dict.contains(cleanedInput)) {
+            return ImmutableSet.of(cleanedInput);
+        }
+
+        return buildFuzzySuggestionList(version, toReturn, cleanedInput, budget);
+    }
+
+    private Set<String> buildFuzzySuggestionList(DictionaryVersion version, Set<String> toReturn,
+                                                 String cleanedInput, Budget budget) {
+
+        List<String> candidates = version.candidateIndex.candidates(cleanedInput);
+        candidatesScanned.update(candidates.size());
+
+        if (parallelThreshold > 0 && candidates.size() >= parallelThreshold) {
+
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            // a few tasks per thread, so a slow partition does not hold up the others
+            int leafSize = Math.max(1000, candidates.size() / (4 * pool.getParallelism()));
+            toReturn.addAll(pool.invoke(new FuzzyMatchTask(cleanedInput, candidates, leafSize, budget)));
+
+            return toReturn;
+        }
+
+        for (int i = 0; i < candidates.size(); i++) {
+
+            if ((i & FuzzyMatchTask.BUDGET_CHECK_MASK) == 0 && budget.expired()) {
+
+                break;
             }
 
-            if (found && wordIndex == word.length()) {
+            String word = candidates.get(i);
+
+            if (FuzzyMatcher.matches(cleanedInput, word)) {
                 toReturn.add(word);
             }
-
-            wordIndex = 0;
-            found = true;
         }
 
         return toReturn;
     }
 
+    Set<String> editDistance(final String input) {
+
+        return editDistance(current, input, Budget.UNLIMITED);
+    }
+
+    /**
+     * Finds the words within the maximum edit distance of the input, see EditDistanceIndex.
+     */
+    private Set<String> editDistance(final DictionaryVersion version, final String input, final Budget budget) {
+
+        if (version.editDistanceIndex == null) {
+
+            return Collections.emptySet();
+        }
+
+        return version.editDistanceIndex.suggestions(input.toLowerCase(), budget);
+    }
+
+    /**
+     * Finds the words made by adding a letter to the front, the end, or both ends of the input.
+     * Rather than probing the Dictionary with every letter combination, walks the trie so only the letters that
+     * actually continue a word are visited.
+     */
     HashSet<String> charAppended(final String input) {
 
+        return charAppended(current, input, Budget.UNLIMITED);
+    }
+
+    private HashSet<String> charAppended(final DictionaryVersion version, final String input, final Budget budget) {
+
+        WordTrie trie = version.trie;
         HashSet<String> toReturn = new HashSet<>();
         String cleanedInput = removeRepeatedChars(input.toLowerCase(), 1);
 
-        for (char front : ALPHABET) {
+        addWordsEndingInLetter(trie, trie.walk(WordTrie.ROOT, cleanedInput), cleanedInput, toReturn);
+
+        for (int front = trie.firstChild(WordTrie.ROOT); front < trie.endChild(WordTrie.ROOT); front++) {
+
+            if (budget.expired()) {
 
-            String atFront = front + cleanedInput;
+                break;
+            }
+
+            if (!isLetter(trie.label(front))) {
 
-            if (dict.contains(atFront)) {
-                toReturn.add(atFront);
+                continue;
             }
 
-            for (char end : ALPHABET) {
+            int node = trie.walk(front, cleanedInput);
 
-                String atFrontAndEnd = front + cleanedInput + end;
+            if (node != WordTrie.NONE) {
 
-                if (dict.contains(atFrontAndEnd)) {
-                    toReturn.add(atFrontAndEnd);
+                String atFront = trie.label(front) + cleanedInput;
+
+                if (trie.isWord(node)) {
+                    toReturn.add(atFront);
                 }
+
+                addWordsEndingInLetter(trie, node, atFront, toReturn);
             }
         }
-        for (char end : ALPHABET) {
 
-            String atBack = cleanedInput + end;
+        return toReturn;
+    }
+
+    /**
+     * Adds the words formed by the prefix leading to the node followed by a single letter.
+     */
+    private static void addWordsEndingInLetter(final WordTrie trie, final int node, final String prefix,
+                                               final Set<String> toReturn) {
 
-            if (dict.contains(atBack)) {
-                toReturn.add(atBack);
+        if (node == WordTrie.NONE) {
+
+            return;
+        }
+
+        for (int end = trie.firstChild(node); end < trie.endChild(node); end++) {
+
+            if (trie.isWord(end) && isLetter(trie.label(end))) {
+                toReturn.add(prefix + trie.label(end));
             }
         }
+    }
 
-        return toReturn;
+    private static boolean isLetter(final char c) {
+
+        return c >= 'a' && c <= 'z';
     }
 
     /**
@@ -254,17 +986,4 @@ public class SpellCheckServiceImpl implements SpellCheckService {
 
         return builder.toString();
     }
-
-    private boolean skipMissingVowel(final char inputChar, final char wordChar, final int wordIndex, final int wordLength) {
-
-        if (!VOWELS.contains(inputChar) && VOWELS.contains(wordChar)) {
-
-            if ((wordIndex + 1) < wordLength) {
-
-                return true;
-            }
-        }
-
-        return false;
-    }
 }
@@ -0,0 +1,18 @@
+package com.susannelson.service;
+
+import java.util.Set;
+
+/**
+ * One way of finding suggestions, run as a stage of the {@link SuggestionPipeline}.
+ */
+@FunctionalInterface
+interface SuggestionGenerator {
+
+    /**
+     * @param version - the dictionary version the request is using
+     * @param input - lowercase input that is not in the dictionary
+     * @param budget - checked regularly, returning the suggestions found so far once it has expired
+     * @return the suggestions found.
+     */
+    Set<String> generate(DictionaryVersion version, String input, Budget budget);
+}
@@ -0,0 +1,110 @@
+package com.susannelson.service;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.ImmutableList;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs suggestion generators in order, each within its own time budget, so a pathological input gets the cheap
+ * suggestions found in time rather than holding the request until every generator finishes.
+ * Stops before the next stage once enough suggestions have been found.
+ * Each stage's time is recorded by the timer spelling.suggestions.{name}, and stages stopped by their budget are
+ * counted by the meter spelling.suggestions.{name}.cut-short.
+ */
+final class SuggestionPipeline {
+
+    private final List<Stage> stages;
+    private final int earlyExitCount;
+    private final List<Timer> timers = new ArrayList<>();
+    private final List<Meter> cutShort = new ArrayList<>();
+
+    SuggestionPipeline(final List<Stage> stages, final int earlyExitCount) {
+        this(stages, earlyExitCount, new MetricRegistry());
+    }
+
+    /**
+     * @param earlyExitCount - number of suggestions after which no further stages are run, 0 to run them all.
+     * @param metrics - registry of the stage timers.
+     */
+    SuggestionPipeline(final List<Stage> stages, final int earlyExitCount, final MetricRegistry metrics) {
+        this.stages = ImmutableList.copyOf(stages);
+        this.earlyExitCount = earlyExitCount;
+
+        for (Stage stage : this.stages) {
+            timers.add(metrics.timer(MetricRegistry.name("spelling", "suggestions", stage.name)));
+            cutShort.add(metrics.meter(MetricRegistry.name("spelling", "suggestions", stage.name, "cut-short")));
+        }
+    }
+
+    Result run(final DictionaryVersion version, final String input) {
+
+        //sorted set
+        Set<String> suggestions = new TreeSet<>();
+        Map<String, Long> stageNanos = new LinkedHashMap<>();
+        boolean complete = true;
+
+        for (int i = 0; i < stages.size(); i++) {
+
+            if (earlyExitCount > 0 && suggestions.size() >= earlyExitCount) {
+
+                break;
+            }
+
+            Stage stage = stages.get(i);
+            Budget budget = Budget.ofNanos(stage.budgetNanos);
+            long start = System.nanoTime();
+            suggestions.addAll(stage.generator.generate(version, input, budget));
+            long elapsed = System.nanoTime() - start;
+
+            timers.get(i).update(elapsed, TimeUnit.NANOSECONDS);
+            stageNanos.put(stage.name, elapsed);
+
+            if (budget.wasCutShort()) {
+                cutShort.get(i).mark();
+                complete = false;
+            }
+        }
+
+        return new Result(suggestions, complete, stageNanos);
+    }
+
+    /**
+     * A named generator and the time it is allowed.
+     */
+    static final class Stage {
+
+        final String name;
+        final SuggestionGenerator generator;
+        final long budgetNanos;
+
+        /**
+         * @param budgetNanos - time allowed, 0 for no limit.
+         */
+        Stage(final String name, final SuggestionGenerator generator, final long budgetNanos) {
+            this.name = name;
+            this.generator = generator;
+            this.budgetNanos = budgetNanos;
+        }
+    }
+
+    /**
+     * The suggestions found, whether every stage that ran finished within its budget, and the time each stage took.
+     */
+    static final class Result {
+
+        final Set<String> suggestions;
+        final boolean complete;
+        // in the order the stages ran
+        final Map<String, Long> stageNanos;
+
+        Result(final Set<String> suggestions, final boolean complete, final Map<String, Long> stageNanos) {
+            this.suggestions = suggestions;
+            this.complete = complete;
+            this.stageNanos = stageNanos;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.susannelson.service;
+
+import com.google.common.collect.ImmutableSet;
+import com.susannelson.data.WordFrequencies;
+
+import java.util.*;
+
+/**
+ * Keeps the best K suggestions, best first: the fewest edits from the input, then the most frequently used, then
+ * alphabetical. Only K candidates are held at a time while ranking, in a heap with the worst of them at the top.
+ * Ranking runs after the suggestion pipeline has found every suggestion, so K limits the size of the response, not the
+ * work of finding suggestions: a suggestion from a later stage may outrank all those found earlier, on frequency or
+ * alphabetically if not on edits, so no stage can be skipped without changing the result.
+ */
+final class SuggestionRanker {
+
+    private final int topK;
+
+    SuggestionRanker(final int topK) {
+        this.topK = topK;
+    }
+
+    /**
+     * @param input - lowercase input
+     * @param suggestions - lowercase dictionary words
+     * @return up to K of the suggestions, in rank order.
+     */
+    Set<String> rank(final String input, final Collection<String> suggestions, final WordFrequencies frequencies) {
+
+        PriorityQueue<Ranked> worstFirst = new PriorityQueue<>(topK + 1, Collections.reverseOrder());
+
+        for (String word : suggestions) {
+
+            boolean full = worstFirst.size() == topK;
+            // once K are held, only the distance up to that of the worst of them matters
+            int maxEdits = full ? worstFirst.peek().edits : Math.max(input.length(), word.length());
+            int edits = EditDistanceIndex.distance(input, word, maxEdits);
+
+            if (full && edits > maxEdits) {
+
+                continue;
+            }
+
+            Ranked ranked = new Ranked(word, edits, frequencies.get(word));
+
+            if (!full) {
+                worstFirst.add(ranked);
+            } else if (ranked.compareTo(worstFirst.peek()) < 0) {
+                worstFirst.poll();
+                worstFirst.add(ranked);
+            }
+        }
+
+        Ranked[] best = worstFirst.toArray(new Ranked[worstFirst.size()]);
+        Arrays.sort(best);
+        ImmutableSet.Builder<String> toReturn = ImmutableSet.builder();
+
+        for (Ranked ranked : best) {
+            toReturn.add(ranked.word);
+        }
+
+        return toReturn.build();
+    }
+
+    private static final class Ranked implements Comparable<Ranked> {
+
+        final String word;
+        final int edits;
+        final long frequency;
+
+        Ranked(final String word, final int edits, final long frequency) {
+            this.word = word;
+            this.edits = edits;
+            this.frequency = frequency;
+        }
+
+        /**
+         * Better ranked first.
+         */
+        @Override
+        public int compareTo(final Ranked other) {
+
+            if (edits != other.edits) {
+
+                return Integer.compare(edits, other.edits);
+            }
+
+            if (frequency != other.frequency) {
+
+                return Long.compare(other.frequency, frequency);
+            }
+
+            return word.compareTo(other.word);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.susannelson.service;
+
+import java.util.Locale;
+
+/**
+ * The case form a word is written in. Characters without case, such as digits and apostrophes, fit any form.
+ *  LOWER - no uppercase characters after the first, which is not uppercase: "hello".
+ *  UPPER - no lowercase characters: "HELLO".
+ *  TITLE - an uppercase first character followed by no uppercase characters: "Hello".
+ *  MIXED - any other word, which is not cased correctly: "HeLLo", "hELLO".
+ */
+public enum WordCase {
+    LOWER,
+    UPPER,
+    TITLE,
+    MIXED;
+
+    /**
+     * Classifies the word in a single pass over its characters, without allocating.
+     *
+     * @param word - input with at least one character.
+     * @return WordCase - the case form of the word.
+     */
+    public static WordCase of(final CharSequence word) {
+
+        int first = Character.codePointAt(word, 0);
+        boolean firstUpper = Character.isUpperCase(first) || Character.isTitleCase(first);
+        boolean restUpper = false;
+        boolean restLower = false;
+
+        for (int i = Character.charCount(first); i < word.length(); ) {
+
+            int codePoint = Character.codePointAt(word, i);
+            restUpper |= Character.isUpperCase(codePoint) || Character.isTitleCase(codePoint);
+            restLower |= Character.isLowerCase(codePoint);
+
+            if (restUpper && restLower) {
+
+                return MIXED;
+            }
+
+            i += Character.charCount(codePoint);
+        }
+
+        if (restUpper) {
+
+            return firstUpper || !Character.isLowerCase(first) ? UPPER : MIXED;
+        }
+
+        if (firstUpper) {
+
+            return restLower ? TITLE : UPPER;
+        }
+
+        return LOWER;
+    }
+
+    /**
+     * Writes a lowercase word in this case form. MIXED words are returned as they are.
+     *
+     * @param lowercaseWord - a word from the Dictionary.
+     * @return String - the word in this case form.
+     */
+    public String apply(final String lowercaseWord) {
+
+        switch (this) {
+
+            case UPPER:
+                return lowercaseWord.toUpperCase(Locale.ROOT);
+
+            case TITLE:
+                if (lowercaseWord.isEmpty()) {
+
+                    return lowercaseWord;
+                }
+
+                int first = lowercaseWord.codePointAt(0);
+
+                return new StringBuilder(lowercaseWord.length())
+                        .appendCodePoint(Character.toTitleCase(first))
+                        .append(lowercaseWord, Character.charCount(first), lowercaseWord.length())
+                        .toString();
+
+            default:
+                return lowercaseWord;
+        }
+    }
+}
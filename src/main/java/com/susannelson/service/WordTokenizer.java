@@ -0,0 +1,178 @@
+package com.susannelson.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits text into words, reading it incrementally so input of any size is tokenized in constant memory.
+ * A word is a run of letters, which may contain apostrophes between letters (don't, o'clock).
+ * Runs longer than the maximum word length cannot be dictionary words and are skipped.
+ */
+public class WordTokenizer {
+
+    public static final int DEFAULT_MAX_WORD_LENGTH = 100;
+
+    private final Reader reader;
+    private final int maxWordLength;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder word = new StringBuilder();
+    private int position = 0;
+    private int limit = 0;
+    // offset in the text of buffer[0]
+    private long bufferOffset = 0;
+
+    public WordTokenizer(final Reader reader) {
+        this(reader, DEFAULT_MAX_WORD_LENGTH);
+    }
+
+    public WordTokenizer(final Reader reader, final int maxWordLength) {
+        this.reader = reader;
+        this.maxWordLength = maxWordLength;
+    }
+
+    /**
+     * @return all the words in the text.
+     */
+    public static List<Token> tokenize(final String text) {
+
+        List<Token> toReturn = new ArrayList<>();
+        WordTokenizer tokenizer = new WordTokenizer(new StringReader(text));
+
+        try {
+            Token token;
+
+            while ((token = tokenizer.next()) != null) {
+                toReturn.add(token);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return toReturn;
+    }
+
+    /**
+     * @return the next word, or null at the end of the text.
+     * @throws IOException if the reader fails.
+     */
+    public Token next() throws IOException {
+
+        int c;
+
+        while ((c = read()) != -1) {
+
+            if (!Character.isLetter(c)) {
+
+                continue;
+            }
+
+            long offset = bufferOffset + position - 1;
+            boolean tooLong = false;
+            word.setLength(0);
+            word.append((char) c);
+
+            while ((c = peek()) != -1) {
+
+                if (Character.isLetter(c)) {
+                    read();
+                } else if (c == '\'' && Character.isLetter(peekAfterApostrophe())) {
+                    read();
+                } else {
+                    break;
+                }
+
+                if (word.length() < maxWordLength) {
+                    word.append((char) c);
+                } else {
+                    tooLong = true;
+                }
+            }
+
+            if (!tooLong) {
+
+                return new Token(word.toString(), offset);
+            }
+        }
+
+        return null;
+    }
+
+    private int read() throws IOException {
+
+        if (position == limit && !fill()) {
+
+            return -1;
+        }
+
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+
+        if (position == limit && !fill()) {
+
+            return -1;
+        }
+
+        return buffer[position];
+    }
+
+    /**
+     * @return the character after the apostrophe at the current position, without consuming either.
+     */
+    private int peekAfterApostrophe() throws IOException {
+
+        if (position + 1 == limit) {
+            // keep the apostrophe in the buffer while reading more
+            buffer[0] = buffer[position];
+            bufferOffset += position;
+            position = 0;
+            int read = reader.read(buffer, 1, buffer.length - 1);
+            limit = read == -1 ? 1 : read + 1;
+        }
+
+        return position + 1 < limit ? buffer[position + 1] : -1;
+    }
+
+    private boolean fill() throws IOException {
+
+        bufferOffset += limit;
+        position = 0;
+        limit = 0;
+        int read = reader.read(buffer, 0, buffer.length);
+
+        if (read <= 0) {
+
+            return false;
+        }
+
+        limit = read;
+        return true;
+    }
+
+    /**
+     * A word and its character offset in the text.
+     */
+    public static final class Token {
+
+        private final String word;
+        private final long offset;
+
+        public Token(final String word, final long offset) {
+            this.word = word;
+            this.offset = offset;
+        }
+
+        public String getWord() {
+            return word;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.susannelson;
+
+import java.util.Random;
+
+/**
+ * Inputs for the benchmarks (src/jmh/java) and the load test (src/loadtest/java), by the kind of word a client sends.
+ */
+public enum BenchmarkInputs {
+
+    CORRECT("hello", "balloon", "receive", "the", "government", "spelling", "dictionary", "don't", "a", "zyzzyva"),
+    CASE_ERROR("HeLLo", "bALLOON", "rECEIVE", "ThE", "GoVeRnMeNt", "sPELLING", "DictionarY", "dON'T", "hELLO", "ZyZzYvA"),
+    MISSPELLED("teh", "recieve", "balllooon", "hllo", "gvrnmnt", "speling", "dictionry", "dont", "ello", "wrld"),
+    GARBAGE(garbage(12, 12, 20, 20, 30, 30, 40, 40, 60, 60));
+
+    private final String[] words;
+
+    BenchmarkInputs(final String... words) {
+        this.words = words;
+    }
+
+    /**
+     * @return the input at the index, wrapping around.
+     */
+    public String get(final int index) {
+
+        return words[(index & Integer.MAX_VALUE) % words.length];
+    }
+
+    /**
+     * @return a random run of letters of each of the lengths.
+     */
+    private static String[] garbage(final int... lengths) {
+
+        Random random = new Random(42);
+        String[] toReturn = new String[lengths.length];
+
+        for (int i = 0; i < lengths.length; i++) {
+
+            StringBuilder builder = new StringBuilder(lengths[i]);
+
+            for (int j = 0; j < lengths[i]; j++) {
+                builder.append((char) ('a' + random.nextInt(26)));
+            }
+
+            toReturn[i] = builder.toString();
+        }
+
+        return toReturn;
+    }
+}
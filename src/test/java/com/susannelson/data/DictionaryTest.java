@@ -1,8 +1,27 @@
 package com.susannelson.data;
 
+import com.google.common.io.ByteStreams;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
@@ -109,6 +128,34 @@ public class DictionaryTest {
         assertTrue(dict.size() == 1);
     }
 
+    @Test
+    public void testContainsCharSequence() throws Exception {
+
+        builder.add("hello");
+        Dictionary dict = builder.build();
+        StringBuilder probe = new StringBuilder("HeLLo");
+
+        assertTrue(dict.contains(probe));
+        assertEquals(dict.get(probe).get(), "hello");
+
+        probe.append('s');
+
+        assertFalse(dict.contains(probe));
+        assertFalse(dict.containsCaseSensitive("HELLO"));
+    }
+
+    @Test
+    public void testContainsNonAscii() throws Exception {
+
+        builder.add("Café");
+        Dictionary dict = builder.build();
+
+        assertTrue(dict.contains("CAFÉ"));
+        assertTrue(dict.contains(new StringBuilder("café")));
+        assertEquals(dict.get("CaFÉ").get(), "café");
+        assertFalse(dict.contains("cafe"));
+    }
+
     @Test
     public void testGetNotFound() throws Exception {
 
@@ -116,6 +163,38 @@ public class DictionaryTest {
         assertTrue(classUnderTest.size() == 0);
     }
 
+    @Test
+    public void testGetWordsView() throws Exception {
+
+        builder.add("hello");
+        builder.add("World");
+        Dictionary dict = builder.build();
+
+        assertTrue(dict.getWordsView().contains("hello"));
+        assertTrue(dict.getWordsView().contains("world"));
+        assertTrue(dict.getWordsView().size() == 2);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testGetWordsViewReadOnly() throws Exception {
+
+        builder.add("hello");
+
+        builder.build().getWordsView().add("world");
+    }
+
+    @Test
+    public void testForEach() throws Exception {
+
+        builder.add("hello");
+        builder.add("world");
+        Set<String> visited = new HashSet<>();
+
+        builder.build().forEach(visited::add);
+
+        assertEquals(visited, builder.build().getWords());
+    }
+
     @Test
     public void testBuild() throws Exception {
 
@@ -132,9 +211,355 @@ public class DictionaryTest {
         assertTrue(dict.size() == 0);
     }
 
+    @Test
+    public void testBuildFileLineEndings() throws Exception {
+
+        Path file = Files.createTempFile("words", ".txt");
+
+        try {
+            Files.write(file, "Hello\r\nWORLD\rcafé\n\nCAFÉ\ndon't".getBytes(StandardCharsets.UTF_8));
+            Dictionary dict = builder.build(file);
+
+            assertEquals(dict.getWords(), new HashSet<>(Arrays.asList("hello", "world", "café", "don't")));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testReadInChunks() throws Exception {
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                getClass().getResourceAsStream(FILE_PATH), StandardCharsets.UTF_8))) {
+            reader.lines().forEach(builder::add);
+        }
+
+        Set<String> lineByLine = builder.build().getWords();
+
+        for (int chunks : new int[]{1, 2, 7, 64}) {
+
+            Set<String> words = new HashSet<>();
+
+            try (InputStream stream = getClass().getResourceAsStream(FILE_PATH)) {
+                WordListReader.read(Channels.newChannel(stream)).addTo(words, chunks);
+            }
+
+            assertEquals(words, lineByLine, "chunks: " + chunks);
+        }
+    }
+
+    @Test
+    public void testShareWordsWith() throws Exception {
+
+        builder.add("hello");
+        builder.add("world");
+        Dictionary base = builder.build();
+
+        Dictionary.DictionaryBuilder other = new Dictionary.DictionaryBuilder().shareWordsWith(base);
+        other.add(new String("hello"));
+        other.add("bonjour");
+        Dictionary dict = other.build();
+
+        assertTrue(dict.get("hello").get() == base.get("hello").get());
+        assertTrue(dict.contains("bonjour"));
+        assertFalse(dict.contains("world"));
+        assertEquals(dict.size(), 2);
+    }
+
+    @Test
+    public void testOverlay() throws Exception {
+
+        builder.add("hello");
+        Set<String> words = OverlayDictionary.newWordSet();
+        OverlayDictionary overlay = new OverlayDictionary(builder.build(), words);
+
+        assertTrue(overlay.contains("Hello"));
+        assertFalse(overlay.contains("acmeware"));
+
+        OverlayDictionary.add(words, "AcmeWare");
+
+        assertEquals(overlay.get("ACMEWARE").get(), "acmeware");
+        assertFalse(overlay.getBase().contains("acmeware"));
+        assertEquals(overlay.getOverlayWords(), Collections.singleton("acmeware"));
+
+        words.remove("acmeware");
+
+        assertFalse(overlay.contains("acmeware"));
+        assertFalse(overlay.contains(null));
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+
+        Dictionary dict = builder.build(FILE_PATH);
+        Dictionary filtered = new Dictionary.DictionaryBuilder().filter(0.01).build(FILE_PATH);
+        WordFilter filter = filtered.getFilter().get();
+
+        assertFalse(dict.getFilter().isPresent());
+        assertEquals(filter.getFalsePositiveRate(), 0.01);
+        assertTrue(filtered.memoryBytes() > dict.memoryBytes());
+
+        dict.forEach(word -> assertTrue(filtered.contains(word.toUpperCase()), word));
+
+        assertEquals(filter.getRejected(), 0);
+        assertEquals(filter.getFalsePositives(), 0);
+
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(filtered.contains("qx" + i + "zz"));
+        }
+
+        assertEquals(filter.getRejected() + filter.getFalsePositives(), 1000);
+        assertTrue(filter.getFalsePositives() < 50, "false positives: " + filter.getFalsePositives());
+        assertEquals(filtered.get("Ångström"), dict.get("Ångström"));
+    }
+
+    @Test
+    public void testWithoutFilter() throws Exception {
+
+        Dictionary dict = builder.build(FILE_PATH);
+
+        assertTrue(dict.withFilter(0) == dict);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testFilterRate() throws Exception {
+
+        builder.filter(1.5).build();
+    }
+
+    @Test
+    public void testBuildPacked() throws Exception {
+
+        Dictionary hash = builder.build(FILE_PATH);
+        Dictionary packed = new Dictionary.DictionaryBuilder().storage(Dictionary.Storage.PACKED).build(FILE_PATH);
+
+        assertEquals(packed.getStorage(), Dictionary.Storage.PACKED);
+        assertEquals(packed.size(), hash.size());
+        assertEquals(packed.getWords(), hash.getWords());
+        assertTrue(packed.memoryBytes() < hash.memoryBytes() / 2);
+
+        hash.forEach(word -> assertTrue(packed.containsCaseSensitive(word), word));
+    }
+
+    @Test
+    public void testPackedContains() throws Exception {
+
+        builder.storage(Dictionary.Storage.PACKED);
+        builder.add("hello");
+        builder.add("help");
+        builder.add("café");
+        builder.add("don't");
+        Dictionary dict = builder.build();
+
+        assertTrue(dict.contains("HELLO"));
+        assertTrue(dict.contains("help"));
+        assertTrue(dict.contains("Café"));
+        assertTrue(dict.contains("don't"));
+        assertTrue(dict.get("Help").isPresent());
+        assertFalse(dict.contains("hel"));
+        assertFalse(dict.contains("helloo"));
+        assertFalse(dict.contains("cafe"));
+        assertFalse(dict.contains(""));
+        assertFalse(dict.contains(null));
+        assertTrue(dict.getWordsView().contains("café"));
+    }
+
+    @Test
+    public void testPackedEmpty() throws Exception {
+
+        Dictionary dict = builder.storage(Dictionary.Storage.PACKED).build(EMPTY_FILE_PATH);
+
+        assertTrue(dict.size() == 0);
+        assertFalse(dict.contains("hello"));
+    }
+
+    @Test
+    public void testSnapshotWriteRead() throws Exception {
+
+        builder.add("hello");
+        builder.add("world");
+        builder.add("café");
+        Dictionary dict = builder.build();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        DictionarySnapshot.write(bytes, dict, 42, 7, Collections.singletonMap("test", new byte[] {1, 2, 3}));
+        DictionarySnapshot snapshot = DictionarySnapshot.read(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertEquals(Arrays.asList(snapshot.getWords()), DictionarySnapshot.order(dict));
+        assertEquals(snapshot.toDictionary(Dictionary.Storage.HASH).getWords(), dict.getWords());
+        assertEquals(snapshot.toDictionary(Dictionary.Storage.PACKED).getWords(), dict.getWords());
+        assertTrue(snapshot.toDictionary(Dictionary.Storage.PACKED).contains("CAFÉ"));
+
+        ByteBuffer section = snapshot.getSection("test").get();
+
+        assertEquals(section.remaining(), 3);
+        assertEquals(section.get(2), 3);
+        assertFalse(snapshot.getSection("other").isPresent());
+    }
+
+    @Test
+    public void testSnapshotStale() throws Exception {
+
+        builder.add("hello");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DictionarySnapshot.write(bytes, builder.build(), 42, 7, Collections.emptyMap());
+        DictionarySnapshot snapshot = DictionarySnapshot.read(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertTrue(snapshot.isFrom(42, 7));
+        assertFalse(snapshot.isFrom(43, 7));
+        // an edit that keeps the length, such as a corrected letter
+        assertFalse(snapshot.isFrom(42, 8));
+    }
+
+    @Test
+    public void testSourceChecksum() throws Exception {
+
+        CRC32 crc = new CRC32();
+        crc.update(ByteStreams.toByteArray(getClass().getResourceAsStream(FILE_PATH)));
+
+        assertEquals(DictionarySnapshot.sourceChecksum(FILE_PATH), crc.getValue());
+        assertEquals(DictionarySnapshot.sourceChecksum(NULL_FILE_PATH), -1);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testSnapshotReadNotSnapshot() throws Exception {
+
+        DictionarySnapshot.read(new ByteArrayInputStream("hello\nworld\n".getBytes("UTF-8")));
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testSnapshotReadTruncated() throws Exception {
+
+        builder.add("hello");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DictionarySnapshot.write(bytes, builder.build(), 42, 7, Collections.emptyMap());
+
+        DictionarySnapshot.read(new ByteArrayInputStream(Arrays.copyOf(bytes.toByteArray(), bytes.size() - 6)));
+    }
+
+    @Test
+    public void testSnapshotPath() throws Exception {
+
+        assertEquals(DictionarySnapshot.snapshotPath(FILE_PATH), "/com/susannelson/data/wordsEn.dict");
+        assertEquals(DictionarySnapshot.snapshotPath("/com.susannelson/words"), "/com.susannelson/words.dict");
+    }
+
+    @Test
+    public void testBuildFromSnapshot() throws Exception {
+
+        // the snapshot is written by the build at process-classes
+        assertTrue(DictionarySnapshot.load(FILE_PATH).isPresent());
+        assertTrue(DictionarySnapshot.load(FILE_PATH, true).isPresent());
+
+        Dictionary fromSnapshot = builder.build(FILE_PATH);
+        Dictionary fromText = new Dictionary.DictionaryBuilder().snapshot(false).build(FILE_PATH);
+
+        assertEquals(fromSnapshot.getWords(), fromText.getWords());
+    }
+
+    @Test
+    public void testBuildNoSnapshot() throws Exception {
+
+        assertFalse(DictionarySnapshot.load(EMPTY_FILE_PATH).isPresent());
+        assertTrue(builder.build(EMPTY_FILE_PATH).size() == 0);
+    }
+
+    @Test
+    public void testMapSnapshot() throws Exception {
+
+        Path file = Files.createTempDirectory("spelling").resolve("shared").resolve("wordsEn.dict");
+        Dictionary mapped = DictionarySnapshot.map(FILE_PATH, file).get().toDictionary(Dictionary.Storage.MAPPED);
+        Dictionary fromText = new Dictionary.DictionaryBuilder().snapshot(false).build(FILE_PATH);
+
+        assertTrue(Files.isRegularFile(file));
+        assertEquals(mapped.getStorage(), Dictionary.Storage.MAPPED);
+        assertEquals(mapped.memoryBytes(), 0);
+        assertEquals(mapped.getWords(), fromText.getWords());
+        assertTrue(mapped.contains("HeLLo"));
+        assertEquals(mapped.get(new StringBuilder("DON'T")).get(), "don't");
+        assertFalse(mapped.contains("helo"));
+
+        // a second process maps the same file
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        Dictionary shared = DictionarySnapshot.map(FILE_PATH, file).get().toDictionary(Dictionary.Storage.MAPPED);
+
+        assertTrue(shared.contains("hello"));
+        assertEquals(Files.getLastModifiedTime(file).toMillis(), modified);
+    }
+
+    @Test
+    public void testMapSnapshotReplacesCorruptFile() throws Exception {
+
+        Path file = Files.createTempDirectory("spelling").resolve("wordsEn.dict");
+        Files.write(file, "not a snapshot".getBytes("UTF-8"));
+
+        Dictionary mapped = DictionarySnapshot.map(FILE_PATH, file).get().toDictionary(Dictionary.Storage.MAPPED);
+
+        assertTrue(mapped.contains("hello"));
+    }
+
+    @Test
+    public void testMapSnapshotPacked() throws Exception {
+
+        Path file = Files.createTempDirectory("spelling").resolve("wordsEn.dict");
+        Dictionary packed = DictionarySnapshot.map(FILE_PATH, file).get().toDictionary(Dictionary.Storage.PACKED);
+
+        assertTrue(packed.memoryBytes() > 0);
+        assertTrue(packed.contains("hello"));
+    }
+
+    @Test
+    public void testMapNoSnapshot() throws Exception {
+
+        Path file = Files.createTempDirectory("spelling").resolve("wordsEmpty.dict");
+
+        assertFalse(DictionarySnapshot.map(EMPTY_FILE_PATH, file).isPresent());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testReadSnapshotNotMapped() throws Exception {
+
+        builder.add("hello");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DictionarySnapshot.write(bytes, builder.build(), 42, 7, Collections.emptyMap());
+
+        DictionarySnapshot.read(new ByteArrayInputStream(bytes.toByteArray())).toDictionary(Dictionary.Storage.MAPPED);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testBuilderMapped() throws Exception {
+
+        builder.storage(Dictionary.Storage.MAPPED);
+    }
+
     @Test(expectedExceptions = RuntimeException.class)
     public void testBuildNoFile() throws Exception {
 
         builder.build(NULL_FILE_PATH);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testWordFrequencies() throws Exception {
+
+        builder.add("hello");
+        builder.add("world");
+        Dictionary dict = builder.build();
+        Path file = Files.createTempDirectory("spelling").resolve("frequencies.txt");
+        Files.write(file, Arrays.asList("# word count", "", "hello 10", "  world\t3", "hello 5", "unknown 7",
+                "world", "world -1", "world many"));
+
+        WordFrequencies frequencies = WordFrequencies.load(file, dict);
+
+        assertEquals(frequencies.size(), 2);
+        assertEquals(frequencies.get("hello"), 15);
+        assertEquals(frequencies.get("world"), 3);
+        assertEquals(frequencies.get("unknown"), 0);
+        assertEquals(WordFrequencies.EMPTY.get("hello"), 0);
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testWordFrequenciesNoFile() throws Exception {
+
+        WordFrequencies.load(Files.createTempDirectory("spelling").resolve("missing.txt"), classUnderTest);
+    }
+}
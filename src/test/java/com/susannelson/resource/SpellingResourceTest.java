@@ -7,12 +7,16 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.SpringApplicationConfiguration;
 import org.springframework.boot.test.TestRestTemplate;
 import org.springframework.boot.test.WebIntegrationTest;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.web.client.RestTemplate;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @SpringApplicationConfiguration(classes = Application.class)
@@ -31,10 +35,176 @@ public class SpellingResourceTest {
         assertEquals(HttpStatus.OK, entity.getStatusCode());
     }
 
+    @Test()
+    public void spellingSuggestions() {
+        ResponseEntity<String> entity = this.restTemplate
+                .getForEntity("http://localhost:" + this.port + "/spelling/wrld", String.class);
+        assertEquals(HttpStatus.OK, entity.getStatusCode());
+        assertTrue(entity.getBody().contains("\"correct\":false"));
+        assertTrue(entity.getBody().contains("\"world\""));
+    }
+
+    @Test()
+    public void spellingSuggestionsInCaseOfInput() {
+        ResponseEntity<String> entity = this.restTemplate
+                .getForEntity("http://localhost:" + this.port + "/spelling/WRLD", String.class);
+        assertEquals(HttpStatus.OK, entity.getStatusCode());
+        assertTrue(entity.getBody().contains("\"WORLD\""));
+    }
+
+    @Test()
+    public void spellingCaseError() {
+        ResponseEntity<String> entity = this.restTemplate
+                .getForEntity("http://localhost:" + this.port + "/spelling/HeLLo", String.class);
+        assertEquals(HttpStatus.OK, entity.getStatusCode());
+        assertEquals("{\"correct\":false,\"suggestions\":[\"Hello\",\"hello\"]}", entity.getBody());
+    }
+
+    @Test()
+    public void spellingNotFound() {
+        ResponseEntity<String> entity = this.restTemplate
+                .getForEntity("http://localhost:" + this.port + "/spelling/qxqxqxqx", String.class);
+        // no word is this with vowels put back or a letter added, unlike qqqqqqqq, which suggests iqs
+        assertEquals(HttpStatus.NOT_FOUND, entity.getStatusCode());
+    }
+
+    @Test()
+    public void spellingCorrectInLanguage() {
+        ResponseEntity<String> entity = this.restTemplate
+                .getForEntity("http://localhost:" + this.port + "/spelling/EN/hello", String.class);
+        assertEquals(HttpStatus.OK, entity.getStatusCode());
+        assertTrue(entity.getBody().contains("\"correct\":true"));
+    }
+
+    @Test()
+    public void spellingUnknownLanguage() {
+        ResponseEntity<String> entity = this.restTemplate
+                .getForEntity("http://localhost:" + this.port + "/spelling/xx/hello", String.class);
+        assertEquals(HttpStatus.NOT_FOUND, entity.getStatusCode());
+        assertTrue(entity.getBody().contains("language"));
+    }
+
     @Test()
     public void missingWord() {
         ResponseEntity<String> entity = this.restTemplate
                 .getForEntity("http://localhost:" + this.port + "/spelling/", String.class);
         assertEquals(HttpStatus.BAD_REQUEST, entity.getStatusCode());
+        assertTrue(entity.getBody().contains("Please supply the word to check."));
+    }
+
+    @Test()
+    public void batchText() {
+        ResponseEntity<String> entity = this.restTemplate
+                .postForEntity("http://localhost:" + this.port + "/spelling/_batch",
+                        entity("hello wrld, hello", MediaType.TEXT_PLAIN), String.class);
+        assertEquals(HttpStatus.OK, entity.getStatusCode());
+        assertTrue(entity.getBody().contains("\"uniqueWords\":2"));
+        assertTrue(entity.getBody().contains("\"word\":\"wrld\",\"offset\":6,\"correct\":false"));
+    }
+
+    @Test()
+    public void batchJson() {
+        ResponseEntity<String> entity = this.restTemplate
+                .postForEntity("http://localhost:" + this.port + "/spelling/_batch",
+                        entity("{\"text\":\"Hello qqqqqqqq\"}", MediaType.APPLICATION_JSON), String.class);
+        assertEquals(HttpStatus.OK, entity.getStatusCode());
+        assertTrue(entity.getBody().contains("\"word\":\"Hello\",\"offset\":0,\"correct\":true"));
+        assertTrue(entity.getBody().contains("\"word\":\"qqqqqqqq\",\"offset\":6,\"correct\":false"));
+    }
+
+    @Test()
+    public void batchJsonMissingText() {
+        ResponseEntity<String> entity = this.restTemplate
+                .postForEntity("http://localhost:" + this.port + "/spelling/_batch",
+                        entity("{}", MediaType.APPLICATION_JSON), String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, entity.getStatusCode());
+        assertTrue(entity.getBody().contains("Input must not be null."));
+    }
+
+    @Test()
+    public void batchTextInLanguage() {
+        ResponseEntity<String> entity = this.restTemplate
+                .postForEntity("http://localhost:" + this.port + "/spelling/EN/_batch",
+                        entity("hello wrld", MediaType.TEXT_PLAIN), String.class);
+        assertEquals(HttpStatus.OK, entity.getStatusCode());
+        assertTrue(entity.getBody().contains("\"word\":\"wrld\",\"offset\":6,\"correct\":false"));
+    }
+
+    @Test()
+    public void batchUnknownLanguage() {
+        ResponseEntity<String> entity = this.restTemplate
+                .postForEntity("http://localhost:" + this.port + "/spelling/xx/_batch",
+                        entity("hello", MediaType.TEXT_PLAIN), String.class);
+        assertEquals(HttpStatus.NOT_FOUND, entity.getStatusCode());
+    }
+
+    @Test()
+    public void spellingCorrectBatch() {
+        ResponseEntity<String> entity = this.restTemplate
+                .getForEntity("http://localhost:" + this.port + "/spelling/batch", String.class);
+        assertEquals(HttpStatus.OK, entity.getStatusCode());
+        assertTrue(entity.getBody().contains("\"correct\":true"));
+    }
+
+    @Test()
+    public void adminDictionary() {
+        ResponseEntity<String> entity = this.restTemplate
+                .getForEntity("http://localhost:" + this.port + "/admin/dictionary", String.class);
+        assertEquals(HttpStatus.OK, entity.getStatusCode());
+        assertTrue(entity.getBody().contains("\"source\":\"/com/susannelson/data/wordsEn.txt\""));
+    }
+
+    @Test()
+    public void adminDictionaryReload() {
+        ResponseEntity<String> entity = this.restTemplate
+                .postForEntity("http://localhost:" + this.port + "/admin/dictionary/reload", null, String.class);
+        assertEquals(HttpStatus.OK, entity.getStatusCode());
+        assertTrue(entity.getBody().contains("\"words\":109582"));
+    }
+
+    @Test()
+    public void adminMetrics() {
+        this.restTemplate.getForEntity("http://localhost:" + this.port + "/spelling/hello", String.class);
+        ResponseEntity<String> entity = this.restTemplate
+                .getForEntity("http://localhost:" + this.port + "/admin/metrics", String.class);
+        assertEquals(HttpStatus.OK, entity.getStatusCode());
+        assertTrue(entity.getBody().contains("\"spelling.check.correct\":{\"count\":"));
+        assertTrue(entity.getBody().contains("\"spelling.dictionary.words\":109582"));
+        assertTrue(entity.getBody().contains("\"spelling.suggestions.FUZZY\":{"));
+    }
+
+    @Test()
+    public void tenantWords() {
+        ResponseEntity<String> added = this.restTemplate
+                .postForEntity("http://localhost:" + this.port + "/admin/tenants/acme/words",
+                        entity("[\"Frobnicator\"]", MediaType.APPLICATION_JSON), String.class);
+        assertEquals(HttpStatus.OK, added.getStatusCode());
+        assertTrue(added.getBody().contains("\"words\":[\"frobnicator\"]"));
+
+        ResponseEntity<String> entity = this.restTemplate
+                .getForEntity("http://localhost:" + this.port + "/spelling/frobnicator?tenant=acme", String.class);
+        assertEquals(HttpStatus.OK, entity.getStatusCode());
+        assertTrue(entity.getBody().contains("\"correct\":true"));
+    }
+
+    @Test()
+    public void batchStream() {
+        ResponseEntity<String> entity = this.restTemplate
+                .postForEntity("http://localhost:" + this.port + "/spelling/_batch/stream",
+                        entity("hello wrld, HeLLo qqqqqqqq", MediaType.TEXT_PLAIN), String.class);
+        assertEquals(HttpStatus.OK, entity.getStatusCode());
+        assertTrue(entity.getHeaders().getContentType().toString().startsWith("application/x-ndjson"));
+
+        String[] lines = entity.getBody().split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("{\"word\":\"wrld\",\"offset\":6,\"correct\":false"));
+        assertEquals("{\"word\":\"HeLLo\",\"offset\":12,\"correct\":false,\"suggestions\":[\"Hello\",\"hello\"]}", lines[1]);
+        assertTrue(lines[2].startsWith("{\"word\":\"qqqqqqqq\",\"offset\":18,\"correct\":false"));
+    }
+
+    private HttpEntity<String> entity(String body, MediaType type) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(type);
+        return new HttpEntity<>(body, headers);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,88 @@
+package com.susannelson.service;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.susannelson.data.Dictionary;
+import com.susannelson.data.WordFrequencies;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class DictionaryRegistryTest {
+
+    private static DictionaryVersion version(final String source, final String... words) {
+
+        Dictionary.DictionaryBuilder builder = new Dictionary.DictionaryBuilder();
+
+        for (String word : words) {
+            builder.add(word);
+        }
+
+        Dictionary dict = builder.build();
+
+        return new DictionaryVersion(1, source, dict, new FullScanCandidateIndex(dict), WordTrie.build(dict), null,
+                WordFrequencies.EMPTY, CacheBuilder.newBuilder().build());
+    }
+
+    @Test
+    public void testLanguageWithinBudgetStaysLoaded() {
+
+        long weight = version("fr.txt", "bonjour", "maison", "chat").memoryBytes();
+        AtomicInteger loads = new AtomicInteger();
+
+        // the language weighs 40% of the budget, more than a quarter, the share of one of Guava's default segments
+        DictionaryRegistry registry = new DictionaryRegistry(ImmutableMap.of("FR", "fr.txt"), weight * 5 / 2,
+                (language, source) -> {
+                    loads.incrementAndGet();
+                    return version(source, "bonjour", "maison", "chat");
+                });
+
+        DictionaryVersion first = registry.get("fr").get();
+        DictionaryVersion second = registry.get("FR").get();
+
+        assertEquals(loads.get(), 1);
+        assertTrue(first == second);
+        assertEquals(registry.loaded().keySet(), ImmutableSet.of("fr"));
+        assertEquals(registry.memoryBytes(), weight);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedUnloaded() {
+
+        long weight = version("fr.txt", "bonjour", "maison", "chat").memoryBytes();
+        AtomicInteger loads = new AtomicInteger();
+
+        // room for one language and not two
+        DictionaryRegistry registry = new DictionaryRegistry(ImmutableMap.of("fr", "fr.txt", "de", "de.txt"),
+                weight * 3 / 2, (language, source) -> {
+                    loads.incrementAndGet();
+                    return version(source, "bonjour", "maison", "chat");
+                });
+
+        registry.get("fr");
+        registry.get("de");
+
+        assertEquals(loads.get(), 2);
+        assertFalse(registry.loaded().containsKey("fr"));
+        assertTrue(registry.loaded().containsKey("de"));
+
+        registry.get("de");
+
+        assertEquals(loads.get(), 2);
+    }
+
+    @Test
+    public void testUnknownLanguage() {
+
+        DictionaryRegistry registry = new DictionaryRegistry(ImmutableMap.of("fr", "fr.txt"), 1L << 20,
+                (language, source) -> version(source, "bonjour"));
+
+        assertFalse(registry.get("xx").isPresent());
+        assertTrue(registry.loaded().isEmpty());
+    }
+}
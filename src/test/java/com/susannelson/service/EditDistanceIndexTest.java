@@ -0,0 +1,119 @@
+package com.susannelson.service;
+
+import com.susannelson.data.Dictionary;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class EditDistanceIndexTest {
+
+    final static String FILE_PATH = "/com/susannelson/data/wordsEn.txt";
+
+    Dictionary dict = null;
+    EditDistanceIndex classUnderTest = null;
+
+    @BeforeClass
+    public void setup() {
+
+        dict = new Dictionary.DictionaryBuilder().build(FILE_PATH);
+        classUnderTest = EditDistanceIndex.build(dict, 2, 7);
+    }
+
+    @Test
+    public void testMemoryBytes() {
+
+        assertTrue(classUnderTest.memoryBytes(false) > 8L * dict.size());
+        assertTrue(classUnderTest.memoryBytes(true) - classUnderTest.memoryBytes(false) >= 40L * dict.size());
+    }
+
+    @Test
+    public void testDistance() {
+
+        assertEquals(EditDistanceIndex.distance("teh", "the", 2), 1);
+        assertEquals(EditDistanceIndex.distance("hello", "hello", 2), 0);
+        assertEquals(EditDistanceIndex.distance("hello", "helo", 2), 1);
+        assertEquals(EditDistanceIndex.distance("hello", "jello", 2), 1);
+        assertEquals(EditDistanceIndex.distance("ca", "abc", 3), 3);
+        assertEquals(EditDistanceIndex.distance("", "ab", 2), 2);
+        assertEquals(EditDistanceIndex.distance("kitten", "sitting", 2), 3);
+        assertEquals(EditDistanceIndex.distance("a", "abcd", 2), 3);
+    }
+
+    @Test
+    public void testSuggestions() {
+
+        assertTrue(classUnderTest.suggestions("teh").contains("the"));
+        assertTrue(classUnderTest.suggestions("recieve").contains("receive"));
+        assertTrue(classUnderTest.suggestions("speling").contains("spelling"));
+        assertFalse(classUnderTest.suggestions("hello").contains("hello"));
+        assertTrue(classUnderTest.suggestions("qqqqqqqqqqqqqqqqqqqq").isEmpty());
+    }
+
+    @Test
+    public void testSameAsScan() {
+
+        List<String> words = new ArrayList<>(dict.getWordsView());
+        Collections.sort(words);
+        Random random = new Random(42);
+        List<String> inputs = new ArrayList<>(Arrays.asList("", "a", "xy", "teh", "dont", "hte", "abcdefghijklmnop"));
+
+        for (int i = 0; i < 100; i++) {
+            inputs.add(misspell(words.get(random.nextInt(words.size())), random));
+        }
+
+        for (String input : inputs) {
+
+            assertEquals(classUnderTest.suggestions(input), scan(words, input), input);
+        }
+    }
+
+    private Set<String> scan(final List<String> words, final String input) {
+
+        Set<String> toReturn = new HashSet<>();
+
+        for (String word : words) {
+
+            if (!word.equals(input) && EditDistanceIndex.distance(input, word, 2) <= 2) {
+                toReturn.add(word);
+            }
+        }
+
+        return toReturn;
+    }
+
+    /**
+     * Makes one or two random edits.
+     */
+    private String misspell(final String word, final Random random) {
+
+        StringBuilder builder = new StringBuilder(word);
+
+        for (int edits = 1 + random.nextInt(2); edits > 0 && builder.length() > 1; edits--) {
+
+            int i = random.nextInt(builder.length() - 1);
+
+            switch (random.nextInt(4)) {
+                case 0:
+                    builder.deleteCharAt(i);
+                    break;
+                case 1:
+                    builder.insert(i, (char) ('a' + random.nextInt(26)));
+                    break;
+                case 2:
+                    builder.setCharAt(i, (char) ('a' + random.nextInt(26)));
+                    break;
+                default:
+                    char c = builder.charAt(i);
+                    builder.setCharAt(i, builder.charAt(i + 1));
+                    builder.setCharAt(i + 1, c);
+            }
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,150 @@
+package com.susannelson.service;
+
+import com.susannelson.data.Dictionary;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class SkeletonCandidateIndexTest {
+
+    final static String FILE_PATH = "/com/susannelson/data/wordsEn.txt";
+
+    Dictionary dict = null;
+    CandidateIndex fullScan = null;
+    CandidateIndex classUnderTest = null;
+
+    @BeforeClass
+    public void setup() {
+
+        dict = new Dictionary.DictionaryBuilder().build(FILE_PATH);
+        fullScan = new FullScanCandidateIndex(dict);
+        classUnderTest = SkeletonCandidateIndex.build(dict);
+    }
+
+    @Test
+    public void testSkeleton() {
+
+        assertEquals(SkeletonCandidateIndex.skeleton("balloon"), "blln");
+        assertEquals(SkeletonCandidateIndex.skeleton("don't"), "dn't");
+        assertEquals(SkeletonCandidateIndex.skeleton("aeiou"), "");
+    }
+
+    @Test
+    public void testEmptyInput() {
+
+        assertTrue(matches(classUnderTest, "").isEmpty());
+    }
+
+    @Test
+    public void testSameMatchesAsFullScan() {
+
+        for (String input : Arrays.asList("balln", "ballon", "blln", "hello", "hllo", "bln", "a", "e", "x", "q", "ae",
+                "aeb", "don't", "dnt", "strng", "zzzzzz", "abcdefghijklmnopqrstuvwxyz")) {
+
+            assertEquals(matches(classUnderTest, input), matches(fullScan, input), input);
+        }
+    }
+
+    @Test
+    public void testSameMatchesAsFullScanForMisspelledWords() {
+
+        List<String> words = new ArrayList<>(dict.getWordsView());
+        Collections.sort(words);
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200; i++) {
+
+            String input = misspell(words.get(random.nextInt(words.size())), random);
+
+            assertEquals(matches(classUnderTest, input), matches(fullScan, input), input);
+        }
+    }
+
+    @Test
+    public void testMemoryBytes() {
+
+        long withoutWords = classUnderTest.memoryBytes(false);
+
+        assertTrue(withoutWords > 0);
+        // each word is in exactly one bucket
+        assertTrue(classUnderTest.memoryBytes(true) - withoutWords >= 40L * dict.size());
+        assertEquals(fullScan.memoryBytes(true) - fullScan.memoryBytes(false),
+                classUnderTest.memoryBytes(true) - withoutWords);
+    }
+
+    @Test
+    public void testWriteRead() throws Exception {
+
+        String[] words = dict.getWordsView().toArray(new String[0]);
+        Map<String, Integer> ids = new HashMap<>();
+
+        for (int i = 0; i < words.length; i++) {
+            ids.put(words[i], i);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ((SkeletonCandidateIndex) classUnderTest).write(new DataOutputStream(bytes), ids::get);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+
+        CandidateIndex read = SkeletonCandidateIndex.read(buffer, words);
+        buffer.rewind();
+        CandidateIndex byId = SkeletonCandidateIndex.read(buffer, id -> new String(words[id]));
+
+        for (String input : Arrays.asList("balln", "hllo", "dnt", "strng", "a", "x")) {
+
+            assertEquals(new TreeSet<>(read.candidates(input)), new TreeSet<>(classUnderTest.candidates(input)), input);
+            assertEquals(new TreeSet<>(byId.candidates(input)), new TreeSet<>(classUnderTest.candidates(input)), input);
+        }
+
+        assertEquals(read.memoryBytes(true), classUnderTest.memoryBytes(true));
+        // the words looked up by id are not held
+        assertEquals(byId.memoryBytes(true), byId.memoryBytes(false));
+        assertTrue(byId.memoryBytes(true) < classUnderTest.memoryBytes(true) / 2);
+    }
+
+    private Set<String> matches(final CandidateIndex index, final String input) {
+
+        Set<String> toReturn = new TreeSet<>();
+
+        for (String word : index.candidates(input)) {
+
+            if (FuzzyMatcher.matches(input, word)) {
+                toReturn.add(word);
+            }
+        }
+
+        return toReturn;
+    }
+
+    /**
+     * Drops some vowels, sometimes truncates the word and sometimes adds a trailing character.
+     */
+    private String misspell(final String word, final Random random) {
+
+        StringBuilder builder = new StringBuilder();
+
+        for (char c : word.toCharArray()) {
+
+            if (!FuzzyMatcher.isVowel(c) || random.nextInt(3) > 0) {
+                builder.append(c);
+            }
+        }
+
+        if (builder.length() > 2 && random.nextInt(4) == 0) {
+            builder.setLength(builder.length() - 1);
+        }
+
+        if (random.nextInt(4) == 0) {
+            builder.append((char) ('a' + random.nextInt(26)));
+        }
+
+        return builder.toString();
+    }
+}
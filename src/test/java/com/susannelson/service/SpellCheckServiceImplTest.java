@@ -1,13 +1,32 @@
 package com.susannelson.service;
 
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableSet;
+import com.susannelson.config.SpellingProperties;
+import com.susannelson.data.Dictionary;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 public class SpellCheckServiceImplTest {
 
@@ -75,6 +94,15 @@ public class SpellCheckServiceImplTest {
         assertFalse(classUnderTest.isCaseCorrect("hELLO"));
     }
 
+    @Test
+    public void testGetWordCase() throws Exception {
+
+        assertEquals(classUnderTest.getWordCase("hello"), WordCase.LOWER);
+        assertEquals(classUnderTest.getWordCase("HELLO"), WordCase.UPPER);
+        assertEquals(classUnderTest.getWordCase("Hello"), WordCase.TITLE);
+        assertEquals(classUnderTest.getWordCase("HeLlO"), WordCase.MIXED);
+    }
+
     @Test(expectedExceptions = IllegalArgumentException.class)
     public void testsCaseCorrectEmpty() throws Exception {
 
@@ -94,6 +122,23 @@ public class SpellCheckServiceImplTest {
         assertTrue(words.size() > 0);
     }
 
+    @Test
+    public void testGetSpellingSuggestionsCached() throws Exception {
+
+        long hits = classUnderTest.getSuggestionCacheStats().hitCount();
+
+        Set<String> words = classUnderTest.getSpellingSuggestions("BallloN");
+
+        assertEquals(classUnderTest.getSpellingSuggestions("balllon"), words);
+        assertEquals(classUnderTest.getSuggestionCacheStats().hitCount(), hits + 1);
+    }
+
+    @Test
+    public void testGetSpellingSuggestionsCorrectWord() throws Exception {
+
+        assertTrue(classUnderTest.getSpellingSuggestions("Hello").isEmpty());
+    }
+
     @Test
     public void testFuzzyMatch() {
 
@@ -129,10 +174,354 @@ public class SpellCheckServiceImplTest {
         assertTrue(words.size() > 0);
     }
 
+    @Test
+    public void testFuzzyMatchParallelFullScan() {
+
+        SpellingProperties properties = new SpellingProperties();
+        properties.getFuzzy().setIndex(SpellingProperties.Fuzzy.Index.FULL_SCAN);
+        properties.getFuzzy().setParallelThreshold(1000);
+        SpellCheckServiceImpl parallel = new SpellCheckServiceImpl(properties);
+
+        for (String input : Arrays.asList("BallloN", "blln", "hllo", "strng", "bn", "a")) {
+
+            assertEquals(parallel.fuzzyMatch(input), classUnderTest.fuzzyMatch(input), input);
+        }
+    }
+
+    @Test
+    public void testEarlyExit() {
+
+        SpellingProperties properties = new SpellingProperties();
+        properties.getSuggestions().setEarlyExitCount(1);
+        SpellCheckServiceImpl earlyExit = new SpellCheckServiceImpl(properties);
+
+        // the fuzzy match finds balloon, so letters are not added to the ends
+        assertEquals(earlyExit.getSpellingSuggestions("balln"), classUnderTest.fuzzyMatch("balln"));
+        assertTrue(classUnderTest.getSpellingSuggestions("balln").containsAll(earlyExit.getSpellingSuggestions("balln")));
+    }
+
+    @Test
+    public void testEditDistanceStrategy() {
+
+        SpellingProperties properties = new SpellingProperties();
+        properties.getSuggestions().setStrategies(Arrays.asList(SpellingProperties.Suggestions.Strategy.FUZZY,
+                SpellingProperties.Suggestions.Strategy.CHAR_APPENDED,
+                SpellingProperties.Suggestions.Strategy.EDIT_DISTANCE));
+        SpellCheckServiceImpl withEditDistance = new SpellCheckServiceImpl(properties);
+
+        assertFalse(classUnderTest.getSpellingSuggestions("teh").contains("the"));
+        assertTrue(withEditDistance.getSpellingSuggestions("Teh").contains("the"));
+        assertTrue(withEditDistance.getSpellingSuggestions("Teh").containsAll(classUnderTest.getSpellingSuggestions("teh")));
+        assertTrue(classUnderTest.editDistance("teh").isEmpty());
+    }
+
+    @Test
+    public void testRankedSuggestions() throws Exception {
+
+        Path file = Files.createTempDirectory("spelling").resolve("frequencies.txt");
+        Files.write(file, Arrays.asList("the 1000", "ten 10", "tent 5000"));
+        SpellingProperties properties = new SpellingProperties();
+        properties.getSuggestions().setStrategies(Arrays.asList(SpellingProperties.Suggestions.Strategy.FUZZY,
+                SpellingProperties.Suggestions.Strategy.CHAR_APPENDED,
+                SpellingProperties.Suggestions.Strategy.EDIT_DISTANCE));
+        properties.getSuggestions().setTopK(3);
+        properties.getSuggestions().setFrequencyFile(file.toString());
+        SpellCheckServiceImpl ranked = new SpellCheckServiceImpl(properties);
+
+        Set<String> suggestions = ranked.getSpellingSuggestions("teh");
+
+        // tent is used most but is an edit further away than the others
+        assertEquals(suggestions.size(), 3);
+        assertEquals(Arrays.asList(suggestions.toArray()).subList(0, 2), Arrays.asList("the", "ten"));
+        assertFalse(suggestions.contains("tent"));
+    }
+
+    @Test
+    public void testMemoryBytes() throws Exception {
+
+        long words = new Dictionary.DictionaryBuilder().build("/com/susannelson/data/wordsEn.txt").memoryBytes();
+
+        // the trie and the candidate index are counted as well as the words
+        assertTrue(classUnderTest.getDictionaryInfo().getMemoryBytes() > words);
+    }
+
+    @Test
+    public void testMappedStorage() throws Exception {
+
+        SpellingProperties properties = new SpellingProperties();
+        properties.getDictionary().setStorage(Dictionary.Storage.MAPPED);
+        properties.getDictionary().setMappedFile(
+                Files.createTempDirectory("spelling").resolve("wordsEn.dict").toString());
+        SpellCheckServiceImpl mapped = new SpellCheckServiceImpl(properties);
+
+        assertEquals(mapped.getWordInLowercase("HeLLo").get(), "hello");
+        // the words and the trie are mapped, and the skeleton index refers to the words by id
+        assertEquals(mapped.getDictionaryInfo().getStorage(), Dictionary.Storage.MAPPED);
+        assertTrue(mapped.getDictionaryInfo().getMemoryBytes() > 0);
+        assertTrue(mapped.getDictionaryInfo().getMemoryBytes()
+                < classUnderTest.getDictionaryInfo().getMemoryBytes() / 100);
+
+        for (String input : Arrays.asList("balln", "teh", "hllo", "zzyzzyv")) {
+
+            assertEquals(mapped.getSpellingSuggestions(input), classUnderTest.getSpellingSuggestions(input), input);
+        }
+    }
+
+    @Test
+    public void testReloadDictionary() throws Exception {
+
+        Path file = Files.createTempDirectory("spelling").resolve("words.txt");
+        Files.write(file, Arrays.asList("hello", "world"));
+        SpellingProperties properties = new SpellingProperties();
+        properties.getDictionary().setFile(file.toString());
+        properties.getDictionary().setWatch(false);
+        SpellCheckServiceImpl reloading = new SpellCheckServiceImpl(properties);
+
+        assertEquals(reloading.getDictionaryInfo().getVersion(), 1);
+        assertFalse(reloading.getWordInLowercase("spell").isPresent());
+
+        Files.write(file, Arrays.asList("hello", "world", "spell"));
+        DictionaryInfo info = reloading.reloadDictionary().get();
+
+        assertEquals(info.getVersion(), 2);
+        assertEquals(info.getWords(), 3);
+        assertEquals(reloading.getDictionaryInfo().getVersion(), 2);
+        assertTrue(reloading.getWordInLowercase("Spell").isPresent());
+        assertTrue(reloading.getSpellingSuggestions("spel").contains("spell"));
+
+        reloading.close();
+    }
+
+    @Test
+    public void testLanguages() throws Exception {
+
+        Path file = Files.createTempDirectory("spelling").resolve("wordsFr.txt");
+        Files.write(file, Arrays.asList("bonjour", "monde", "grenouille", "hello"));
+        SpellingProperties properties = new SpellingProperties();
+        properties.getDictionary().getLanguages().put("FR", file.toString());
+        properties.getDictionary().getLanguages().put("en-bundled", "classpath:/com/susannelson/data/wordsEn.txt");
+        SpellCheckServiceImpl multilingual = new SpellCheckServiceImpl(properties);
+
+        assertEquals(multilingual.getLanguages(), ImmutableSet.of("en", "en-bundled", "fr"));
+        assertEquals(multilingual.getWordInLowercase("fr", "Bonjour").get(), "bonjour");
+        assertFalse(multilingual.getWordInLowercase("fr", "world").isPresent());
+        // "bonjour" and "monde" are in the English list too
+        assertTrue(multilingual.getWordInLowercase("fr", "grenouille").isPresent());
+        assertFalse(multilingual.getWordInLowercase("grenouille").isPresent());
+        assertTrue(multilingual.getSpellingSuggestions("Fr", "bnjour").contains("bonjour"));
+        assertEquals(multilingual.getWordInLowercase("EN", "Hello").get(), "hello");
+        assertTrue(multilingual.getWordInLowercase("en-bundled", "world").isPresent());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnknownLanguage() throws Exception {
+
+        classUnderTest.getWordInLowercase("xx", "hello");
+    }
+
+    @Test
+    public void testFilteredDictionary() throws Exception {
+
+        SpellingProperties properties = new SpellingProperties();
+        properties.getDictionary().setFilterFalsePositiveRate(0.01);
+        SpellCheckServiceImpl filtered = new SpellCheckServiceImpl(properties);
+
+        for (String input : Arrays.asList("hello", "HELLO", "balln", "wrld", "qqqqqqqq")) {
+
+            assertEquals(filtered.getWordInLowercase(input), classUnderTest.getWordInLowercase(input), input);
+            assertEquals(filtered.getSpellingSuggestions(input), classUnderTest.getSpellingSuggestions(input), input);
+        }
+    }
+
+    @Test
+    public void testConcurrentRequestsCoalesced() throws Exception {
+
+        // without a cache, every request that does not wait for another makes the suggestions itself
+        SpellingProperties properties = new SpellingProperties();
+        properties.getCache().setMaximumSize(0);
+        MetricRegistry metrics = new MetricRegistry();
+        SpellCheckServiceImpl coalescing = new SpellCheckServiceImpl(properties, metrics);
+        int threads = 16;
+        CyclicBarrier start = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Set<String>>> results = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return coalescing.getSpellingSuggestions("bllllLLlln");
+                }));
+            }
+
+            for (Future<Set<String>> result : results) {
+                assertEquals(result.get(), classUnderTest.getSpellingSuggestions("bllllLLlln"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long misses = metrics.meter("spelling.suggestions.cache.misses").getCount();
+        long coalesced = metrics.meter("spelling.suggestions.coalesced").getCount();
+        // a cache of size 0 evicts each entry just after it is put, so a request may still find it in between
+        long hits = metrics.meter("spelling.suggestions.cache.hits").getCount();
+
+        assertEquals(misses + coalesced + hits, threads);
+        assertTrue(misses >= 1);
+
+        coalescing.getSpellingSuggestions("bllllLLlln");
+
+        assertEquals(metrics.meter("spelling.suggestions.cache.misses").getCount(), misses + 1);
+        assertEquals(metrics.meter("spelling.suggestions.coalesced").getCount(), coalesced);
+    }
+
+    @Test
+    public void testTenantWords() throws Exception {
+
+        SpellCheckServiceImpl tenanted = new SpellCheckServiceImpl();
+
+        assertFalse(tenanted.getWordInLowercase("en", "acme", "Frobnicator").isPresent());
+
+        tenanted.addTenantWords("ACME", Arrays.asList("Frobnicator", "", null));
+
+        assertEquals(tenanted.getTenantWords("acme"), ImmutableSet.of("frobnicator"));
+        assertEquals(tenanted.getWordInLowercase("en", "acme", "Frobnicator").get(), "frobnicator");
+        assertEquals(tenanted.getWordInLowercase("en", "acme", "hello").get(), "hello");
+        assertFalse(tenanted.getWordInLowercase("en", "other", "frobnicator").isPresent());
+        assertFalse(tenanted.getWordInLowercase("frobnicator").isPresent());
+        assertTrue(tenanted.getSpellingSuggestions("en", "acme", "frobnicator").isEmpty());
+
+        tenanted.removeTenantWords("Acme", Collections.singleton("FROBNICATOR"));
+
+        assertFalse(tenanted.getWordInLowercase("en", "acme", "frobnicator").isPresent());
+        assertTrue(tenanted.getTenantWords("acme").isEmpty());
+    }
+
+    @Test
+    public void testTenantSuggestions() throws Exception {
+
+        SpellCheckServiceImpl tenanted = new SpellCheckServiceImpl();
+        Set<String> dictionarySuggestions = tenanted.getSpellingSuggestions("balln");
+
+        assertFalse(tenanted.getSpellingSuggestions("en", "acme", "frobnicatr").contains("frobnicator"));
+
+        // suggested from the next request, although the dictionary's suggestions for the input are cached
+        tenanted.addTenantWords("acme", Arrays.asList("frobnicator", "ballun"));
+
+        assertTrue(tenanted.getSpellingSuggestions("en", "acme", "frobnicatr").contains("frobnicator"));
+        assertTrue(tenanted.getSpellingSuggestions("en", "acme", "frobnicato").contains("frobnicator"));
+        assertTrue(tenanted.getSpellingSuggestions("en", "acme", "balln").containsAll(dictionarySuggestions));
+        assertTrue(tenanted.getSpellingSuggestions("en", "acme", "balln").contains("ballun"));
+        assertEquals(tenanted.getSpellingSuggestions("en", "other", "balln"), dictionarySuggestions);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTenantEmpty() throws Exception {
+
+        classUnderTest.addTenantWords("", Collections.singleton("frobnicator"));
+    }
+
+    @Test
+    public void testReloadEmptyDictionaryKeepsVersion() throws Exception {
+
+        Path file = Files.createTempDirectory("spelling").resolve("words.txt");
+        Files.write(file, Arrays.asList("hello", "world"));
+        SpellingProperties properties = new SpellingProperties();
+        properties.getDictionary().setFile(file.toString());
+        properties.getDictionary().setWatch(false);
+        SpellCheckServiceImpl reloading = new SpellCheckServiceImpl(properties);
+
+        Files.write(file, new byte[0]);
+
+        try {
+            reloading.reloadDictionary().get();
+            fail("an empty word list must not be swapped in");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        assertEquals(reloading.getDictionaryInfo().getVersion(), 1);
+        assertTrue(reloading.getWordInLowercase("hello").isPresent());
+
+        reloading.close();
+    }
+
+    @Test
+    public void testReloadOnFileChange() throws Exception {
+
+        Path file = Files.createTempDirectory("spelling").resolve("words.txt");
+        Files.write(file, Arrays.asList("hello", "world"));
+        SpellingProperties properties = new SpellingProperties();
+        properties.getDictionary().setFile(file.toString());
+        SpellCheckServiceImpl watching = new SpellCheckServiceImpl(properties);
+
+        // replaced the way a deployment would, by moving a new file into place
+        Path next = file.resolveSibling("words.txt.new");
+        Files.write(next, Arrays.asList("hello", "world", "spell"));
+        Files.move(next, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        long deadline = System.currentTimeMillis() + 20000;
+
+        while (!watching.getWordInLowercase("spell").isPresent() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertTrue(watching.getWordInLowercase("spell").isPresent());
+        assertTrue(watching.getDictionaryInfo().getVersion() > 1);
+
+        watching.close();
+    }
+
     @Test
     public void testCharAppended() {
 
         Set<String> words = classUnderTest.charAppended("BalllonN");
         assertTrue(words.size() > 0);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCharAppendedSameAsProbing() {
+
+        Dictionary dict = new Dictionary.DictionaryBuilder().build("/com/susannelson/data/wordsEn.txt");
+
+        for (String input : Arrays.asList("ello", "ALLOO", "an", "a", "", "on't", "zzyzzyv", "xqxq", "ight")) {
+
+            assertEquals(classUnderTest.charAppended(input), probe(dict, input), input);
+        }
+    }
+
+    /**
+     * Adds every letter to the front and/or end of the input and checks the Dictionary for each.
+     */
+    private Set<String> probe(final Dictionary dict, final String input) {
+
+        Set<String> toReturn = new HashSet<>();
+        StringBuilder cleaned = new StringBuilder();
+
+        for (char c : input.toLowerCase().toCharArray()) {
+
+            if (cleaned.length() == 0 || cleaned.charAt(cleaned.length() - 1) != c) {
+                cleaned.append(c);
+            }
+        }
+
+        for (char front = 'a'; front <= 'z'; front++) {
+
+            for (String candidate : Arrays.asList(front + cleaned.toString(), cleaned.toString() + front)) {
+
+                if (dict.contains(candidate)) {
+                    toReturn.add(candidate);
+                }
+            }
+
+            for (char end = 'a'; end <= 'z'; end++) {
+
+                if (dict.contains(front + cleaned.toString() + end)) {
+                    toReturn.add(front + cleaned.toString() + end);
+                }
+            }
+        }
+
+        return toReturn;
+    }
+}
@@ -0,0 +1,122 @@
+package com.susannelson.service;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class SuggestionPipelineTest {
+
+    @Test
+    public void testRunsStagesInOrder() {
+
+        SuggestionPipeline pipeline = new SuggestionPipeline(Arrays.asList(
+                stage("first", ImmutableSet.of("b", "a")),
+                stage("second", ImmutableSet.of("c", "a"))), 0);
+
+        SuggestionPipeline.Result result = pipeline.run(null, "input");
+
+        assertEquals(result.suggestions, ImmutableSet.of("a", "b", "c"));
+        assertEquals(result.suggestions.iterator().next(), "a");
+        assertTrue(result.complete);
+    }
+
+    @Test
+    public void testEarlyExit() {
+
+        AtomicInteger secondRuns = new AtomicInteger();
+        SuggestionPipeline pipeline = new SuggestionPipeline(Arrays.asList(
+                stage("first", ImmutableSet.of("a", "b")),
+                new SuggestionPipeline.Stage("second", (version, input, budget) -> {
+                    secondRuns.incrementAndGet();
+                    return ImmutableSet.of("c");
+                }, 0)), 2);
+
+        SuggestionPipeline.Result result = pipeline.run(null, "input");
+
+        assertEquals(result.suggestions, ImmutableSet.of("a", "b"));
+        assertEquals(secondRuns.get(), 0);
+        assertTrue(result.complete);
+    }
+
+    @Test
+    public void testBudgetCutsStageShort() {
+
+        // finds a word each iteration until its budget runs out
+        SuggestionGenerator slow = (version, input, budget) -> {
+
+            Set<String> toReturn = new HashSet<>();
+
+            while (!budget.expired()) {
+                toReturn.add("word" + toReturn.size());
+            }
+
+            return toReturn;
+        };
+        SuggestionPipeline pipeline = new SuggestionPipeline(Arrays.asList(
+                new SuggestionPipeline.Stage("slow", slow, TimeUnit.MILLISECONDS.toNanos(5)),
+                stage("fast", ImmutableSet.of("fast"))), 0);
+
+        long start = System.nanoTime();
+        SuggestionPipeline.Result result = pipeline.run(null, "input");
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertFalse(result.complete);
+        assertTrue(result.suggestions.contains("word0"));
+        assertTrue(result.suggestions.contains("fast"));
+    }
+
+    @Test
+    public void testUnlimitedBudget() {
+
+        assertFalse(Budget.ofNanos(0).expired());
+        assertFalse(Budget.UNLIMITED.wasCutShort());
+        assertFalse(Budget.ofNanos(TimeUnit.SECONDS.toNanos(60)).expired());
+    }
+
+    @Test
+    public void testNoStages() {
+
+        SuggestionPipeline.Result result = new SuggestionPipeline(Collections.emptyList(), 0).run(null, "input");
+
+        assertTrue(result.suggestions.isEmpty());
+        assertTrue(result.complete);
+    }
+
+    private static SuggestionPipeline.Stage stage(final String name, final Set<String> suggestions) {
+
+        return new SuggestionPipeline.Stage(name, (version, input, budget) -> suggestions, 0);
+    }
+
+    @Test
+    public void testStageMetrics() {
+
+        MetricRegistry metrics = new MetricRegistry();
+        SuggestionPipeline pipeline = new SuggestionPipeline(Arrays.asList(
+                stage("first", ImmutableSet.of("a")),
+                new SuggestionPipeline.Stage("second", (version, input, budget) -> {
+                    while (!budget.expired()) {
+                        Thread.yield();
+                    }
+                    return Collections.emptySet();
+                }, TimeUnit.MILLISECONDS.toNanos(1))), 0, metrics);
+
+        SuggestionPipeline.Result result = pipeline.run(null, "input");
+
+        assertEquals(result.stageNanos.keySet(), ImmutableSet.of("first", "second"));
+        assertEquals(metrics.timer("spelling.suggestions.first").getCount(), 1);
+        assertEquals(metrics.timer("spelling.suggestions.second").getCount(), 1);
+        assertEquals(metrics.meter("spelling.suggestions.first.cut-short").getCount(), 0);
+        assertEquals(metrics.meter("spelling.suggestions.second.cut-short").getCount(), 1);
+    }
+}
@@ -0,0 +1,69 @@
+package com.susannelson.service;
+
+import com.google.common.collect.ImmutableList;
+import com.susannelson.data.Dictionary;
+import com.susannelson.data.WordFrequencies;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class SuggestionRankerTest {
+
+    WordFrequencies frequencies = null;
+
+    @BeforeClass
+    public void setup() throws Exception {
+
+        Dictionary.DictionaryBuilder builder = new Dictionary.DictionaryBuilder();
+
+        for (String word : Arrays.asList("hello", "hallo", "hell", "help", "hero", "yellow")) {
+            builder.add(word);
+        }
+
+        Path file = Files.createTempDirectory("spelling").resolve("frequencies.txt");
+        Files.write(file, Arrays.asList("help 100", "hell 20", "hallo 1", "hero 50"));
+        frequencies = WordFrequencies.load(file, builder.build());
+    }
+
+    @Test
+    public void testRankOrder() {
+
+        Set<String> ranked = new SuggestionRanker(10).rank("helo",
+                Arrays.asList("yellow", "hero", "hello", "hallo", "hell", "help"), frequencies);
+
+        // one edit: help, hell, hero by frequency then hello, with none, two edits: hallo, then yellow
+        assertEquals(ImmutableList.copyOf(ranked), Arrays.asList("help", "hero", "hell", "hello", "hallo", "yellow"));
+    }
+
+    @Test
+    public void testTopK() {
+
+        Set<String> ranked = new SuggestionRanker(2).rank("helo",
+                Arrays.asList("yellow", "hero", "hello", "hallo", "hell", "help"), frequencies);
+
+        assertEquals(ImmutableList.copyOf(ranked), Arrays.asList("help", "hero"));
+    }
+
+    @Test
+    public void testEqualFrequenciesAlphabetical() {
+
+        Set<String> ranked = new SuggestionRanker(3).rank("helo",
+                Arrays.asList("yellow", "hero", "hello", "hell", "help"), WordFrequencies.EMPTY);
+
+        assertEquals(ImmutableList.copyOf(ranked), Arrays.asList("hell", "hello", "help"));
+    }
+
+    @Test
+    public void testNoSuggestions() {
+
+        assertTrue(new SuggestionRanker(3).rank("helo", Collections.emptySet(), frequencies).isEmpty());
+    }
+}
@@ -0,0 +1,54 @@
+package com.susannelson.service;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+public class WordCaseTest {
+
+    @Test
+    public void testOf() {
+
+        assertEquals(WordCase.of("hello"), WordCase.LOWER);
+        assertEquals(WordCase.of("HELLO"), WordCase.UPPER);
+        assertEquals(WordCase.of("Hello"), WordCase.TITLE);
+        assertEquals(WordCase.of("HeLlO"), WordCase.MIXED);
+        assertEquals(WordCase.of("hELLO"), WordCase.MIXED);
+    }
+
+    @Test
+    public void testOfSingleCharacter() {
+
+        assertEquals(WordCase.of("h"), WordCase.LOWER);
+        assertEquals(WordCase.of("H"), WordCase.UPPER);
+    }
+
+    @Test
+    public void testOfCaselessCharacters() {
+
+        assertEquals(WordCase.of("don't"), WordCase.LOWER);
+        assertEquals(WordCase.of("DON'T"), WordCase.UPPER);
+        assertEquals(WordCase.of("Don't"), WordCase.TITLE);
+        assertEquals(WordCase.of("42x"), WordCase.LOWER);
+        assertEquals(WordCase.of("42X"), WordCase.UPPER);
+    }
+
+    @Test
+    public void testOfNonAscii() {
+
+        assertEquals(WordCase.of("été"), WordCase.LOWER);
+        assertEquals(WordCase.of("ÉTÉ"), WordCase.UPPER);
+        assertEquals(WordCase.of("Été"), WordCase.TITLE);
+        assertEquals(WordCase.of("éTé"), WordCase.MIXED);
+    }
+
+    @Test
+    public void testApply() {
+
+        assertEquals(WordCase.LOWER.apply("hello"), "hello");
+        assertEquals(WordCase.UPPER.apply("hello"), "HELLO");
+        assertEquals(WordCase.TITLE.apply("hello"), "Hello");
+        assertEquals(WordCase.MIXED.apply("hello"), "hello");
+        assertEquals(WordCase.TITLE.apply("été"), "Été");
+    }
+}
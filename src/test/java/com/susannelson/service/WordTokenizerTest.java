@@ -0,0 +1,72 @@
+package com.susannelson.service;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class WordTokenizerTest {
+
+    @Test
+    public void testTokenize() {
+
+        List<WordTokenizer.Token> tokens = WordTokenizer.tokenize("Hello, wrld! Don't  stop'  'til 42x");
+
+        assertEquals(tokens.size(), 6);
+        assertToken(tokens.get(0), "Hello", 0);
+        assertToken(tokens.get(1), "wrld", 7);
+        assertToken(tokens.get(2), "Don't", 13);
+        assertToken(tokens.get(3), "stop", 20);
+        assertToken(tokens.get(4), "til", 28);
+        assertToken(tokens.get(5), "x", 34);
+    }
+
+    @Test
+    public void testTokenizeEmpty() {
+
+        assertTrue(WordTokenizer.tokenize("").isEmpty());
+        assertTrue(WordTokenizer.tokenize(" 12 ... ").isEmpty());
+    }
+
+    @Test
+    public void testSkipsLongRuns() throws IOException {
+
+        WordTokenizer tokenizer = new WordTokenizer(new StringReader("abcdef ab abc"), 3);
+
+        assertToken(tokenizer.next(), "ab", 7);
+        assertToken(tokenizer.next(), "abc", 10);
+        assertNull(tokenizer.next());
+    }
+
+    @Test
+    public void testAcrossBufferBoundaries() throws IOException {
+
+        StringBuilder text = new StringBuilder();
+
+        // puts an apostrophe and words across each 8192 character buffer boundary
+        while (text.length() < 50000) {
+            text.append("ab' don't ");
+        }
+
+        List<WordTokenizer.Token> tokens = WordTokenizer.tokenize(text.toString());
+
+        assertEquals(tokens.size(), 10000);
+
+        for (int i = 0; i < tokens.size(); i += 2) {
+
+            assertToken(tokens.get(i), "ab", i * 5);
+            assertToken(tokens.get(i + 1), "don't", i * 5 + 4);
+        }
+    }
+
+    private void assertToken(final WordTokenizer.Token token, final String word, final long offset) {
+
+        assertEquals(token.getWord(), word);
+        assertEquals(token.getOffset(), offset);
+    }
+}
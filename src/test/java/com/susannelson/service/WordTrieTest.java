@@ -0,0 +1,119 @@
+package com.susannelson.service;
+
+import com.susannelson.data.Dictionary;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class WordTrieTest {
+
+    WordTrie classUnderTest = null;
+
+    @BeforeClass
+    public void setup() {
+
+        Dictionary.DictionaryBuilder builder = new Dictionary.DictionaryBuilder();
+        builder.add("a");
+        builder.add("an");
+        builder.add("and");
+        builder.add("ant");
+        builder.add("bee");
+
+        classUnderTest = WordTrie.build(builder.build());
+    }
+
+    @Test
+    public void testSize() {
+
+        // root, a, an, and, ant, b, be, bee
+        assertEquals(classUnderTest.size(), 8);
+    }
+
+    @Test
+    public void testMemoryBytes() {
+
+        // an int and a char for each node, one more child start, and a bit for each node
+        assertTrue(classUnderTest.memoryBytes() >= 6L * classUnderTest.size() + 4);
+    }
+
+    @Test
+    public void testWalk() {
+
+        assertTrue(classUnderTest.isWord(classUnderTest.walk(WordTrie.ROOT, "and")));
+        assertTrue(classUnderTest.isWord(classUnderTest.walk(WordTrie.ROOT, "a")));
+        assertFalse(classUnderTest.isWord(classUnderTest.walk(WordTrie.ROOT, "be")));
+        assertEquals(classUnderTest.walk(WordTrie.ROOT, "ants"), WordTrie.NONE);
+        assertEquals(classUnderTest.walk(WordTrie.ROOT, ""), WordTrie.ROOT);
+    }
+
+    @Test
+    public void testChildren() {
+
+        int node = classUnderTest.walk(WordTrie.ROOT, "an");
+        StringBuilder labels = new StringBuilder();
+
+        for (int child = classUnderTest.firstChild(node); child < classUnderTest.endChild(node); child++) {
+            labels.append(classUnderTest.label(child));
+        }
+
+        assertEquals(labels.toString(), "dt");
+        assertEquals(classUnderTest.child(node, 't'), classUnderTest.walk(WordTrie.ROOT, "ant"));
+        assertEquals(classUnderTest.child(node, 'x'), WordTrie.NONE);
+    }
+
+    @Test
+    public void testEmptyDictionary() {
+
+        WordTrie empty = WordTrie.build(new Dictionary.DictionaryBuilder().build());
+
+        assertEquals(empty.size(), 1);
+        assertFalse(empty.isWord(WordTrie.ROOT));
+        assertEquals(empty.walk(WordTrie.ROOT, "a"), WordTrie.NONE);
+    }
+
+    @Test
+    public void testWriteRead() throws Exception {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        classUnderTest.write(new DataOutputStream(bytes));
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+
+        WordTrie read = WordTrie.read(buffer);
+
+        assertFalse(buffer.hasRemaining());
+        assertEquals(read.size(), classUnderTest.size());
+
+        for (int node = 0; node < read.size(); node++) {
+
+            assertEquals(read.label(node), classUnderTest.label(node));
+            assertEquals(read.isWord(node), classUnderTest.isWord(node));
+            assertEquals(read.firstChild(node), classUnderTest.firstChild(node));
+            assertEquals(read.endChild(node), classUnderTest.endChild(node));
+        }
+    }
+
+    @Test
+    public void testReadDirect() throws Exception {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        classUnderTest.write(new DataOutputStream(bytes));
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.size());
+        buffer.put(bytes.toByteArray()).flip();
+
+        // as from a memory mapped snapshot, the arrays are read where they are
+        WordTrie read = WordTrie.read(buffer);
+
+        assertFalse(buffer.hasRemaining());
+        assertTrue(read.memoryBytes() < classUnderTest.memoryBytes());
+        assertTrue(read.isWord(read.walk(WordTrie.ROOT, "and")));
+        assertFalse(read.isWord(read.walk(WordTrie.ROOT, "be")));
+        assertEquals(read.walk(WordTrie.ROOT, "ants"), WordTrie.NONE);
+    }
+}